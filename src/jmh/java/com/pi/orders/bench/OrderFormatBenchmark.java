@@ -0,0 +1,116 @@
+package com.pi.orders.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pi.orders.domain.Order;
+import com.pi.orders.lib.OrderProcessingLibrary;
+import com.pi.orders.web.dto.OrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Wire formats of a list page of {@link OrderResponse}: JSON, gzip-compressed JSON (what
+ * {@code server.compression} sends), CBOR and Smile. Measures encode and decode time per page;
+ * the encoded size of each page is printed once per trial ({@code [payload] ...} lines) and
+ * gc.alloc.rate.norm shows the allocation per operation.
+ * Run with {@code mvn -Pjmh -DskipTests verify -Djmh.include=OrderFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderFormatBenchmark {
+
+    private static final TypeReference<List<OrderResponse>> PAGE = new TypeReference<>() {
+    };
+
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    String format;
+
+    // 20 orders is the default page size; 100 is the largest page callers ask for
+    @Param({"20", "100"})
+    int pageSize;
+
+    @Param({"3", "20"})
+    int items;
+
+    private List<OrderResponse> page;
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Order order = OrderProcessingLibrary.toOrder(OrderMappingBenchmark.BenchmarkData.createRequest(items));
+            order.setId(1_000L + i);
+            order.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i));
+            order.setUpdatedAt(Instant.parse("2025-01-01T00:05:00Z").plusSeconds(i));
+            page.add(OrderProcessingLibrary.toResponse(order));
+        }
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        gzip = format.equals("json-gzip");
+        // same settings as the Boot-configured mappers behind the HTTP message converters
+        mapper = JsonMapper.builder(factory)
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        encoded = encode();
+        System.out.printf("%n[payload] format=%s pageSize=%d items=%d bytes=%d%n", format, pageSize, items, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!gzip) {
+            return mapper.writeValueAsBytes(page);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<OrderResponse> decode() throws IOException {
+        if (!gzip) {
+            return mapper.readValue(encoded, PAGE);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            return mapper.readValue(in, PAGE);
+        }
+    }
+}
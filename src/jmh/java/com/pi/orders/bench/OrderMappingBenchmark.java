@@ -0,0 +1,110 @@
+package com.pi.orders.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pi.orders.domain.Order;
+import com.pi.orders.domain.OrderItem;
+import com.pi.orders.lib.OrderProcessingLibrary;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.OrderItemRequest;
+import com.pi.orders.web.dto.OrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot path of every GET/list response: entity -> OrderResponse mapping and Jackson
+ * serialization, plus the BigDecimal total computation done at create time.
+ * Run with {@code mvn -Pjmh -DskipTests verify}; the gc profiler reports gc.alloc.rate.norm
+ * (bytes per operation) next to throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({"1", "10", "500"})
+    int items;
+
+    private Order order;
+    private OrderResponse response;
+    private ObjectMapper mapper;
+
+    @Setup
+    public void setUp() {
+        order = OrderProcessingLibrary.toOrder(BenchmarkData.createRequest(items));
+        order.setId(42L);
+        order.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        order.setUpdatedAt(Instant.parse("2025-01-01T00:05:00Z"));
+        response = OrderProcessingLibrary.toResponse(order);
+        // same settings as the Boot-configured mapper used by the controllers
+        mapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public OrderResponse toResponse() {
+        return OrderProcessingLibrary.toResponse(order);
+    }
+
+    @Benchmark
+    public BigDecimal computeTotal() {
+        return order.computeTotal();
+    }
+
+    @Benchmark
+    public void computeLineTotals(Blackhole bh) {
+        for (OrderItem item : order.getItems()) {
+            bh.consume(item.computeLineTotal());
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(OrderProcessingLibrary.toResponse(order));
+    }
+
+    /**
+     * Deterministic sample payloads shared by the benchmarks in this package.
+     */
+    static final class BenchmarkData {
+        private BenchmarkData() {
+        }
+
+        static CreateOrderRequest createRequest(int itemCount) {
+            List<OrderItemRequest> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add(new OrderItemRequest("SKU-" + i, "Item number " + i, 1 + i % 5,
+                        new BigDecimal("19.99").add(BigDecimal.valueOf(i, 2))));
+            }
+            return new CreateOrderRequest("cust-bench", items);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.pi.orders.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response times (microseconds, 3 significant digits) and outcomes per operation for the measured
+ * period. Times are taken from each request's scheduled start, not from when it was sent, so a
+ * stalled service shows up as latency rather than as fewer requests (no coordinated omission).
+ */
+final class LatencyReport {
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Histogram all = new ConcurrentHistogram(3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+        }
+    }
+
+    /**
+     * @param outcome HTTP status, {@code error} (I/O failure or timeout) or {@code dropped}
+     *                (not sent: too many requests outstanding)
+     */
+    void record(Operation operation, String outcome, long latencyNanos) {
+        long micros = Math.max(1L, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        latencies.get(operation).recordValue(micros);
+        all.recordValue(micros);
+        count(operation, outcome);
+    }
+
+    void dropped(Operation operation) {
+        count(operation, "dropped");
+    }
+
+    /**
+     * Print the summary and write it plus one percentile distribution per operation
+     * ({@code <operation>.hgrm}, milliseconds) to {@code reportDir}. Compare runs by plotting the
+     * {@code .hgrm} files of a baseline and a candidate together.
+     */
+    void write(LoadConfig config, long measuredNanos, Path reportDir) throws IOException {
+        Files.createDirectories(reportDir);
+        double seconds = measuredNanos / 1e9;
+        try (PrintStream file = new PrintStream(Files.newOutputStream(reportDir.resolve("summary.txt")))) {
+            for (PrintStream out : new PrintStream[]{System.out, file}) {
+                out.printf("%n[load] %s%n", config);
+                out.printf("[load] target %.1f req/s, measured %.1f s%n", config.rate(), seconds);
+                out.printf("%-8s %9s %9s %9s %9s %9s %9s %9s%n",
+                        "op", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+                for (Map.Entry<Operation, Histogram> entry : latencies.entrySet()) {
+                    if (entry.getValue().getTotalCount() > 0) {
+                        row(out, entry.getKey().name().toLowerCase(), entry.getValue(), seconds);
+                    }
+                }
+                row(out, "all", all, seconds);
+                out.println("[load] outcomes " + new TreeMap<>(outcomes));
+            }
+        }
+        for (Map.Entry<Operation, Histogram> entry : latencies.entrySet()) {
+            Path hgrm = reportDir.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void count(Operation operation, String outcome) {
+        outcomes.computeIfAbsent(operation.name().toLowerCase() + " " + outcome, k -> new LongAdder()).increment();
+    }
+
+    private static void row(PrintStream out, String name, Histogram h, double seconds) {
+        out.printf("%-8s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, h.getTotalCount(), h.getTotalCount() / seconds,
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pi.orders.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load-test settings, from {@code key=value} arguments (see {@link LoadTest}).
+ *
+ * @param targetUrl   base URL of a running service; empty starts one in-process on in-memory H2
+ * @param rate        arrivals per second, independent of how fast responses come back
+ * @param poisson     exponential inter-arrival times (true) or a constant interval
+ * @param warmup      run before measuring; its requests are not reported
+ * @param duration    measured period
+ * @param mix         relative weight per operation
+ * @param customers   distinct customer ids
+ * @param skew        Zipf exponent of the customer popularity; 0 = uniform
+ * @param itemsMin    fewest items per created order
+ * @param itemsMax    most items per created order
+ * @param seedOrders  orders created before the run, so reads and cancels have targets
+ * @param maxInFlight outstanding requests above which new arrivals are dropped (and counted)
+ * @param listQuery   query string appended to list requests after {@code customerId}
+ * @param timeout     per-request timeout
+ * @param seed        random seed of the arrival schedule and request choices
+ * @param reportDir   where the summary and the per-operation {@code .hgrm} files go
+ */
+record LoadConfig(String targetUrl,
+                  double rate,
+                  boolean poisson,
+                  Duration warmup,
+                  Duration duration,
+                  Map<Operation, Integer> mix,
+                  int customers,
+                  double skew,
+                  int itemsMin,
+                  int itemsMax,
+                  int seedOrders,
+                  int maxInFlight,
+                  String listQuery,
+                  Duration timeout,
+                  long seed,
+                  Path reportDir) {
+
+    static LoadConfig from(Map<String, String> settings) {
+        Map<String, String> s = new HashMap<>(settings);
+        String[] items = take(s, "items", "1-5").split("-");
+        LoadConfig config = new LoadConfig(
+                take(s, "target", ""),
+                Double.parseDouble(take(s, "rate", "200")),
+                switch (take(s, "arrivals", "poisson")) {
+                    case "poisson" -> true;
+                    case "constant" -> false;
+                    default -> throw new IllegalArgumentException("arrivals must be poisson or constant");
+                },
+                Duration.parse(take(s, "warmup", "PT10S")),
+                Duration.parse(take(s, "duration", "PT60S")),
+                mix(take(s, "mix", "create:20,get:50,list:25,cancel:5")),
+                Integer.parseInt(take(s, "customers", "1000")),
+                Double.parseDouble(take(s, "skew", "1.0")),
+                Integer.parseInt(items[0]),
+                Integer.parseInt(items[items.length - 1]),
+                Integer.parseInt(take(s, "seed-orders", "1000")),
+                Integer.parseInt(take(s, "max-in-flight", "2000")),
+                take(s, "list-query", "size=20"),
+                Duration.parse(take(s, "timeout", "PT10S")),
+                Long.parseLong(take(s, "seed", "42")),
+                Path.of(take(s, "report-dir", "target/load")));
+        if (!s.isEmpty()) {
+            throw new IllegalArgumentException("unknown load settings " + s.keySet());
+        }
+        if (!(config.rate > 0) || config.customers < 1 || config.itemsMin < 1 || config.itemsMax < config.itemsMin
+                || config.maxInFlight < 1 || config.skew < 0) {
+            throw new IllegalArgumentException("invalid load settings " + config);
+        }
+        return config;
+    }
+
+    private static String take(Map<String, String> settings, String key, String defaultValue) {
+        String value = settings.remove(key);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static Map<Operation, Integer> mix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight in mix " + spec);
+            }
+            mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("mix has no positive weight: " + spec);
+        }
+        return mix;
+    }
+}
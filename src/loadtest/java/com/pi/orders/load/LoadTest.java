@@ -0,0 +1,177 @@
+package com.pi.orders.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pi.orders.OrdersApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the order API with an open workload model: requests arrive at
+ * {@code rate} per second on a fixed schedule whether or not earlier ones have completed, as
+ * independent clients would, and each is sent on its own virtual thread.
+ * <p>
+ * Arguments are {@code key=value} load settings ({@link LoadConfig}) and {@code --spring.property=value}
+ * overrides for the service started in-process, e.g.
+ * <pre>
+ * mvn -Pload -DskipTests verify -Dload.args="rate=500 duration=PT2M mix=create:10,get:70,list:20 --orders.admission.enabled=false"
+ * </pre>
+ * Without {@code target=...} the service is started in this JVM on a random port with an
+ * in-memory H2 database. Before the run, {@code seed-orders} orders are created so reads and
+ * cancels have targets; then {@code warmup} and {@code duration} follow and only the latter is
+ * reported (see {@link LatencyReport}).
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : String.join(" ", args).trim().split("\\s+")) {
+            if (arg.isEmpty()) continue;
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else {
+                String[] kv = arg.split("=", 2);
+                if (kv.length != 2) throw new IllegalArgumentException("expected key=value, got " + arg);
+                settings.put(kv[0], kv[1]);
+            }
+        }
+        LoadConfig config = LoadConfig.from(settings);
+
+        ConfigurableApplicationContext app = config.targetUrl().isEmpty() ? start(springArgs) : null;
+        try {
+            URI base = URI.create(app == null ? config.targetUrl()
+                    : "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort());
+            run(config, base);
+        } finally {
+            if (app != null) app.close();
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static ConfigurableApplicationContext start(List<String> springArgs) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:orders-load;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        properties.put("orders.outbox.file.path", "target/load/order-events.ndjson");
+        // a repeated option would become a comma-separated list, so overrides replace the defaults here
+        for (String arg : springArgs) {
+            String[] kv = arg.substring(2).split("=", 2);
+            properties.put(kv[0], kv.length == 2 ? kv[1] : "");
+        }
+        String[] args = properties.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+        return new SpringApplicationBuilder(OrdersApplication.class).run(args);
+    }
+
+    private static void run(LoadConfig config, URI base) throws Exception {
+        OrderWorkload workload = new OrderWorkload(config, base);
+        LatencyReport report = new LatencyReport();
+        SplittableRandom random = new SplittableRandom(config.seed());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            seed(config, workload, client, random);
+
+            Semaphore inFlight = new Semaphore(config.maxInFlight());
+            long start = System.nanoTime();
+            long measureFrom = start + config.warmup().toNanos();
+            long end = measureFrom + config.duration().toNanos();
+            for (long scheduled = start; scheduled < end; scheduled += workload.interArrivalNanos(random)) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                Operation operation = workload.nextOperation(random);
+                HttpRequest request = workload.request(operation, random);
+                boolean measured = scheduled >= measureFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) report.dropped(operation);
+                    continue;
+                }
+                long intendedStart = scheduled;
+                executor.execute(() -> {
+                    try {
+                        String outcome = send(client, request, operation, workload);
+                        if (measured) report.record(operation, outcome, System.nanoTime() - intendedStart);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            if (!inFlight.tryAcquire(config.maxInFlight(), config.timeout().toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                System.out.println("[load] requests still outstanding after the run; they are not reported");
+            }
+            report.write(config, end - measureFrom, config.reportDir());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create the seed orders, {@code 16} at a time, before measuring.
+     */
+    private static void seed(LoadConfig config, OrderWorkload workload, HttpClient client, SplittableRandom random)
+            throws InterruptedException {
+        Semaphore parallel = new Semaphore(16);
+        List<Thread> threads = new ArrayList<>(config.seedOrders());
+        for (int i = 0; i < config.seedOrders(); i++) {
+            HttpRequest request = workload.seedRequest(i, random);
+            parallel.acquire();
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    send(client, request, Operation.CREATE, workload);
+                } finally {
+                    parallel.release();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("[load] seeded %d orders%n", config.seedOrders());
+    }
+
+    /**
+     * @return the response status, or {@code error}
+     */
+    private static String send(HttpClient client, HttpRequest request, Operation operation, OrderWorkload workload) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (operation == Operation.CREATE && response.statusCode() == 201) {
+                workload.remember(JSON.readTree(response.body()).get("id").asLong());
+            }
+            return String.valueOf(response.statusCode());
+        } catch (IOException e) {
+            return "error";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "error";
+        }
+    }
+}
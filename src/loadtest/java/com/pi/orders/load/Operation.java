@@ -0,0 +1,15 @@
+package com.pi.orders.load;
+
+/**
+ * Requests the load test sends.
+ */
+enum Operation {
+    /** POST /api/orders */
+    CREATE,
+    /** GET /api/orders/{id} of an order created earlier */
+    GET,
+    /** GET /api/orders?customerId=... */
+    LIST,
+    /** PATCH /api/orders/{id}/cancel of an order created earlier; 200, or 400 once it is no longer PENDING */
+    CANCEL
+}
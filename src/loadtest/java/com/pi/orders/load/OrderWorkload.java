@@ -0,0 +1,133 @@
+package com.pi.orders.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Picks what each arrival does and builds its request. All choices are made on the arrival
+ * thread from one seeded random source, so a given seed replays the same schedule.
+ */
+final class OrderWorkload {
+
+    private static final String JSON = "application/json";
+    private static final int KNOWN_IDS = 100_000;
+
+    private final LoadConfig config;
+    private final URI base;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final double[] customerCdf;
+    private final AtomicLongArray knownIds = new AtomicLongArray(KNOWN_IDS);
+    private final AtomicLong created = new AtomicLong();
+
+    OrderWorkload(LoadConfig config, URI base) {
+        this.config = config;
+        this.base = base;
+        this.operations = config.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += config.mix().get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        // Zipf: customer k (0-based) is chosen with weight 1 / (k + 1)^skew
+        this.customerCdf = new double[config.customers()];
+        double total = 0;
+        for (int k = 0; k < customerCdf.length; k++) {
+            total += 1 / Math.pow(k + 1, config.skew());
+            customerCdf[k] = total;
+        }
+        for (int k = 0; k < customerCdf.length; k++) {
+            customerCdf[k] /= total;
+        }
+    }
+
+    /**
+     * @return nanoseconds from this arrival to the next
+     */
+    long interArrivalNanos(SplittableRandom random) {
+        double meanNanos = 1e9 / config.rate();
+        return Math.max(1L, Math.round(config.poisson() ? -Math.log(1 - random.nextDouble()) * meanNanos : meanNanos));
+    }
+
+    Operation nextOperation(SplittableRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                // reads and cancels need an order to act on
+                return operations[i] != Operation.CREATE && created.get() == 0 ? Operation.CREATE : operations[i];
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    HttpRequest request(Operation operation, SplittableRandom random) {
+        return switch (operation) {
+            case CREATE -> create(customer(random), random);
+            case GET -> builder("/api/orders/" + knownId(random)).GET().build();
+            case LIST -> builder("/api/orders?customerId=" + customer(random) + "&" + config.listQuery()).GET().build();
+            case CANCEL -> builder("/api/orders/" + knownId(random) + "/cancel")
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+        };
+    }
+
+    /**
+     * A create for the {@code i}-th seed order; seed orders are spread evenly over customers.
+     */
+    HttpRequest seedRequest(int i, SplittableRandom random) {
+        return create(customerId(i % config.customers()), random);
+    }
+
+    /**
+     * Keep a created order as a target for reads and cancels (the latest {@value #KNOWN_IDS}).
+     * The count is published after the slot is written, so readers never see an empty slot.
+     */
+    synchronized void remember(long orderId) {
+        long count = created.get();
+        knownIds.set((int) (count % KNOWN_IDS), orderId);
+        created.set(count + 1);
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private HttpRequest create(String customerId, SplittableRandom random) {
+        int items = random.nextInt(config.itemsMin(), config.itemsMax() + 1);
+        StringBuilder body = new StringBuilder(64 + items * 96)
+                .append("{\"customerId\":\"").append(customerId).append("\",\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"sku\":\"SKU-").append(random.nextInt(1000))
+                    .append("\",\"name\":\"Load item\",\"quantity\":").append(random.nextInt(1, 4))
+                    .append(",\"unitPrice\":").append(random.nextInt(100, 100_000) / 100.0).append('}');
+        }
+        body.append("]}");
+        return builder("/api/orders")
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private String customer(SplittableRandom random) {
+        int k = Arrays.binarySearch(customerCdf, random.nextDouble());
+        return customerId(Math.min(k < 0 ? -k - 1 : k, customerCdf.length - 1));
+    }
+
+    private static String customerId(int k) {
+        return "load-c" + k;
+    }
+
+    private long knownId(SplittableRandom random) {
+        long count = created.get();
+        return knownIds.get(random.nextInt((int) Math.min(count, KNOWN_IDS)));
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(config.timeout())
+                .header("Accept", JSON);
+    }
+}
@@ -0,0 +1,18 @@
+package com.pi.orders.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Order read cache. The cache manager itself comes from {@code spring.cache.*}
+ * (Caffeine with size/TTL eviction and recordStats); {@code spring.cache.type=none} turns it off.
+ * <p>
+ * Caching advice runs before the transaction advice so a hit never opens a transaction
+ * or borrows a connection.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+    public static final String ORDERS_CACHE = "orders";
+}
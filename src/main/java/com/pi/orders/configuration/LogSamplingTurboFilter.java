@@ -0,0 +1,69 @@
+package com.pi.orders.configuration;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps 1 in N success-path (below WARN) events per configured logger; WARN and ERROR always pass.
+ * <p>
+ * Configured from logback-spring.xml as {@code <rates>com.pi.orders.service.impl.OrderServiceImpl=100</rates>}
+ * (comma separated, logger name or package prefix, longest prefix wins). Runs as a turbo filter,
+ * so dropped events never reach an encoder or appender. Level checks such as isInfoEnabled()
+ * (no message) are not sampled and do not advance the counters.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    private Rule[] rules = new Rule[0];
+    private String rates = "";
+
+    public void setRates(String rates) {
+        this.rates = rates == null ? "" : rates.trim();
+    }
+
+    @Override
+    public void start() {
+        List<Rule> parsed = new ArrayList<>();
+        for (String entry : rates.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] kv = entry.split("=", 2);
+            if (kv.length != 2) {
+                addError("Ignoring sampling rule without '=': " + entry);
+                continue;
+            }
+            try {
+                long n = Long.parseLong(kv[1].trim());
+                if (n > 1) parsed.add(new Rule(kv[0].trim(), n, new AtomicLong()));
+            } catch (NumberFormatException e) {
+                addError("Ignoring sampling rule with non-numeric rate: " + entry);
+            }
+        }
+        parsed.sort(Comparator.comparingInt((Rule r) -> r.prefix().length()).reversed());
+        rules = parsed.toArray(new Rule[0]);
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || level.isGreaterOrEqual(Level.WARN) || rules.length == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        for (Rule rule : rules) {
+            if (name.startsWith(rule.prefix())) {
+                return rule.counter().getAndIncrement() % rule.keepOneIn() == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    private record Rule(String prefix, long keepOneIn, AtomicLong counter) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.pi.orders.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.function.Supplier;
+
+/**
+ * Separate connection pools for read-only and read-write transactions, so a burst of list
+ * and export traffic cannot take the connections that creates, cancels and jobs need.
+ * <p>
+ * The application DataSource is a {@link LazyConnectionDataSourceProxy}: a transaction's
+ * physical connection is fetched at its first statement, by which time the transaction
+ * manager has marked it read-only for {@code @Transactional(readOnly = true)}. Read-only
+ * connections come from the read pool, everything else (including work outside a
+ * transaction) from the primary pool.
+ * <p>
+ * The read pool connects to {@code orders.datasource.read.url}, a replica, or to the primary
+ * database when it is unset. If the replica cannot be reached, reads fall back to the primary pool,
+ * counted in {@code orders.datasource.read.fallback}. A saturated read pool does not fall
+ * back: that is the starvation this split exists to contain. Pool metrics are the standard
+ * {@code hikaricp_*} meters, tagged {@code pool=orders-primary|orders-read}.
+ * <p>
+ * A replica can lag behind the primary. Reads whose result outlives the request, such as a
+ * cache load right after the commit that evicted the entry, run inside {@link #readFromPrimary}
+ * and take their read-only connection from the primary pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "orders.datasource.read.enabled", havingValue = "true")
+@Log4j2
+public class ReadWriteDataSourceConfig {
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = ThreadLocal.withInitial(() -> false);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("orders.datasource.read.hikari")
+    HikariDataSource readDataSource(DataSourceProperties properties,
+                                    @Value("${orders.datasource.read.url:}") String url,
+                                    @Value("${orders.datasource.read.username:}") String username,
+                                    @Value("${orders.datasource.read.password:}") String password) {
+        DataSourceBuilder<HikariDataSource> builder = properties.initializeDataSourceBuilder().type(HikariDataSource.class);
+        if (StringUtils.hasText(url)) {
+            builder.url(url);
+        }
+        if (StringUtils.hasText(username)) {
+            builder.username(username).password(password);
+        }
+        HikariDataSource dataSource = builder.build();
+        dataSource.setReadOnly(true);
+        // start even if the replica is down; reads then fall back until it is reachable
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                          @Qualifier("readDataSource") DataSource read,
+                          MeterRegistry registry) {
+        return routing(primary, read, registry);
+    }
+
+    /**
+     * @return a DataSource that serves read-only connections from {@code read}, falling back to
+     * {@code primary} when {@code read} is unreachable, and all other connections from {@code primary}
+     */
+    public static DataSource routing(DataSource primary, DataSource read, MeterRegistry registry) {
+        Counter fallbacks = Counter.builder("orders.datasource.read.fallback")
+                .description("Read-only connections taken from the primary pool because the read pool failed")
+                .register(registry);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new FallbackDataSource(read, primary, fallbacks));
+        return proxy;
+    }
+
+    /**
+     * Runs {@code work} with read-only connections taken from the primary pool. Must enclose the
+     * first statement of the transaction: its connection is fetched then and kept until the end.
+     */
+    public static <T> T readFromPrimary(Supplier<T> work) {
+        boolean outer = !PRIMARY_READS.get();
+        PRIMARY_READS.set(true);
+        try {
+            return work.get();
+        } finally {
+            if (outer) PRIMARY_READS.remove();
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static final class FallbackDataSource extends DelegatingDataSource {
+
+        private final DataSource fallback;
+        private final Counter fallbacks;
+
+        FallbackDataSource(DataSource target, DataSource fallback, Counter fallbacks) {
+            super(target);
+            this.fallback = fallback;
+            this.fallbacks = fallbacks;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (PRIMARY_READS.get()) {
+                return fallback.getConnection();
+            }
+            try {
+                return obtainTargetDataSource().getConnection();
+            } catch (SQLException e) {
+                // Hikari reports a pool that is merely busy as a transient exception without a cause
+                if (e instanceof SQLTransientConnectionException && e.getCause() == null) {
+                    throw e;
+                }
+                fallbacks.increment();
+                log.warn("[readDataSource] read pool unavailable, using primary: {}", e.getMessage());
+                return fallback.getConnection();
+            }
+        }
+    }
+}
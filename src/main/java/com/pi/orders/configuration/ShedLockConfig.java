@@ -1,18 +1,33 @@
 package com.pi.orders.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
 import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.sql.DataSource;
+import java.util.Optional;
 
 @Configuration
 @EnableSchedulerLock(defaultLockAtMostFor = "PT5M")
 public class ShedLockConfig {
+
+    /**
+     * JDBC lock provider that counts runs skipped because another node (or a still-running
+     * previous run) holds the lock: {@code orders.jobs.lock.skipped{job}}.
+     */
     @Bean
-    LockProvider lockProvider(DataSource ds) {
-        return new JdbcTemplateLockProvider(ds);
+    LockProvider lockProvider(DataSource ds, MeterRegistry registry) {
+        LockProvider delegate = new JdbcTemplateLockProvider(ds);
+        return lockConfiguration -> {
+            Optional<SimpleLock> lock = delegate.lock(lockConfiguration);
+            if (lock.isEmpty()) {
+                registry.counter("orders.jobs.lock.skipped", "job", lockConfiguration.getName()).increment();
+            }
+            return lock;
+        };
     }
 }
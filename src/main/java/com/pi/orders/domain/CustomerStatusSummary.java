@@ -0,0 +1,51 @@
+package com.pi.orders.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Read-model row: how many orders a customer has in one status and their value.
+ * Written only by set-based statements in {@code CustomerStatusSummaryRepository}.
+ */
+@Entity
+@Table(name = "customer_status_summary")
+@IdClass(CustomerStatusSummary.Key.class)
+@Getter
+@Setter
+public class CustomerStatusSummary {
+    @Id
+    private String customerId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private long orderCount;
+    private BigDecimal orderValue;
+
+    // Creation time of the newest order that is or was in this status; the max over a customer's rows is their last order
+    private Instant lastCreatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String customerId;
+        private OrderStatus status;
+    }
+}
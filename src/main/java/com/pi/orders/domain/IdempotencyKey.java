@@ -0,0 +1,36 @@
+package com.pi.orders.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A used {@code Idempotency-Key}: the order its first request created, the response it got
+ * and a hash of that request's body. Inserted only by {@code IdempotencyKeyRepository#insert}, so a concurrent
+ * duplicate fails on the primary key instead of being merged.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idem_key")
+    private String key;
+
+    // SHA-256 (hex) of the request body, to reject a key reused for a different order
+    private String requestHash;
+
+    private Long orderId;
+    private Instant createdAt;
+
+    // OrderResponse JSON as first returned; null for keys stored before schema V11
+    @Lob
+    private String responseBody;
+}
@@ -10,9 +10,12 @@ import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -25,7 +28,8 @@ import java.util.List;
 @Setter
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     private String customerId;
@@ -33,10 +37,19 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status = OrderStatus.PENDING;
 
+    // Stored once at creation (sum of item line totals); read paths never recompute it
+    private BigDecimal total;
+
+    // Optimistic lock; bulk status UPDATEs increment it too
+    @Version
+    private Long version;
+
     private Instant createdAt = Instant.now();
     private Instant updatedAt = Instant.now();
 
+    // Touching one order's items on a list page loads the items of up to 100 orders in a single IN query
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<OrderItem> items = new ArrayList<>();
 
     @PrePersist
@@ -45,8 +58,8 @@ public class Order {
         this.updatedAt = Instant.now();
     }
 
-    public BigDecimal total() {
-        return items.stream().map(OrderItem::lineTotal)
+    public BigDecimal computeTotal() {
+        return items.stream().map(OrderItem::computeLineTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
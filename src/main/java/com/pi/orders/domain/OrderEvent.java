@@ -0,0 +1,41 @@
+package com.pi.orders.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Outbox row: one order status change, written in the transaction that made the change
+ * and deleted by the relay once published.
+ */
+@Entity
+@Table(name = "order_events")
+@Getter
+@Setter
+public class OrderEvent {
+    // Identity, so set-based INSERT ... SELECT can write events without touching a pooled sequence;
+    // per order, ids follow commit order because changes to one order serialize on its row.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+    private String customerId;
+
+    // null for the creation event
+    @Enumerated(EnumType.STRING)
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus toStatus;
+
+    private Instant occurredAt;
+}
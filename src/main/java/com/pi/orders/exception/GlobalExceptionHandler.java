@@ -2,6 +2,7 @@ package com.pi.orders.exception;
 
 import com.pi.orders.web.dto.ErrorResponse;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MissingServletRequestParameterException;
@@ -39,6 +40,17 @@ public class GlobalExceptionHandler {
                 .body(errorResponse);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloaded(ServiceOverloadedException ex) {
+        // expected under load, and counted by admission control: no stack trace, no INFO line per request
+        log.debug("ServiceOverloadedException occurred status={} code={}", ex.getStatus(), ex.getCode());
+        ErrorResponse errorResponse = ErrorResponse.builder().status(ex.getStatus().name()).details(ex.getDetails()).build();
+        return ResponseEntity
+                .status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<ErrorResponse> handleMissingServletRequestParameterException(MissingServletRequestParameterException ex) {
         log.info("MissingServletRequestParameterException occurred ", ex);
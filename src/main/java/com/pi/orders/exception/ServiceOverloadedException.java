@@ -0,0 +1,28 @@
+package com.pi.orders.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A request shed by admission control before any work was done: 429 when a customer is over
+ * its rate, 503 when the service as a whole is at capacity. Answered with Retry-After.
+ */
+@Getter
+public class ServiceOverloadedException extends BaseException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(HttpStatus status, String code, String message, String details,
+                                      long retryAfterSeconds) {
+        super(status, code, message, details, null);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Thrown on the hot path under overload; the stack trace would only cost time.
+     */
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
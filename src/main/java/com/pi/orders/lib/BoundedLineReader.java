@@ -0,0 +1,92 @@
+package com.pi.orders.lib;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 lines from a stream without ever holding more than {@code maxLineBytes} of one line.
+ * <p>
+ * Lines end at {@code \n}; a trailing {@code \r} is dropped, as {@link java.io.BufferedReader#readLine}
+ * does. A line longer than the limit is not buffered: the rest of it is skipped up to the next
+ * newline and it comes back as {@link Line#tooLong()}, so the caller can report it and go on.
+ * Memory is the 8 KiB read buffer plus at most one line of {@code maxLineBytes}, however large
+ * the input or its lines are.
+ */
+public final class BoundedLineReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final int maxLineBytes;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private byte[] line;
+
+    public BoundedLineReader(InputStream in, int maxLineBytes) {
+        if (maxLineBytes < 1) {
+            throw new IllegalArgumentException("maxLineBytes must be positive");
+        }
+        this.in = in;
+        this.maxLineBytes = maxLineBytes;
+        this.line = new byte[Math.min(maxLineBytes, BUFFER_SIZE)];
+    }
+
+    /**
+     * @return the next line without its terminator, or null at the end of the input
+     */
+    public Line readLine() throws IOException {
+        int length = 0;
+        long bytes = 0;
+        boolean any = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                if (!any) return null;
+                break;
+            }
+            any = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') position++;
+            int chunk = position - start;
+            bytes += chunk;
+            if (bytes <= maxLineBytes) {
+                if (length + chunk > line.length) {
+                    line = Arrays.copyOf(line, (int) Math.min(maxLineBytes, Math.max(2L * line.length, length + chunk)));
+                }
+                System.arraycopy(buffer, start, line, length, chunk);
+                length += chunk;
+            }
+            if (position < limit) {
+                position++; // the newline
+                break;
+            }
+        }
+        if (length > 0 && bytes <= maxLineBytes && line[length - 1] == '\r') {
+            length--;
+            bytes--;
+        }
+        return bytes > maxLineBytes
+                ? new Line(null, bytes)
+                : new Line(new String(line, 0, length, StandardCharsets.UTF_8), bytes);
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        position = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    /**
+     * @param text  the line, or null when it was over the limit and skipped
+     * @param bytes its length in bytes, without the terminator
+     */
+    public record Line(String text, long bytes) {
+
+        public boolean tooLong() {
+            return text == null;
+        }
+    }
+}
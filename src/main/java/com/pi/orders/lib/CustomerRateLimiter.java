@@ -0,0 +1,68 @@
+package com.pi.orders.lib;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-customer token buckets, implemented as GCRA (generic cell rate algorithm).
+ * <p>
+ * A bucket is a single {@link AtomicLong}, the theoretical arrival time of the customer's next
+ * request. A request is admitted if it is at most {@code burst - 1} emission intervals early.
+ * Admission advances that time with one CAS, so no locks are taken. A rejected request does
+ * not consume anything.
+ * <p>
+ * Buckets live in a Caffeine cache bounded by {@code maxCustomers}. Idle buckets expire after
+ * {@code idleExpiry}, which is never shorter than one full refill. An expired bucket would be
+ * full again anyway, so expiry gives nothing away. Evicting an active bucket because of the size
+ * bound hands that customer a fresh burst.
+ */
+public final class CustomerRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public CustomerRateLimiter(double ratePerSecond, int burst, Duration idleExpiry, long maxCustomers,
+                               LongSupplier nanoClock) {
+        if (!(ratePerSecond > 0) || burst < 1 || maxCustomers < 1) {
+            throw new IllegalArgumentException("rate, burst and maxCustomers must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1L, Math.round(1_000_000_000d / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+        Duration refill = Duration.ofNanos(emissionIntervalNanos * burst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxCustomers)
+                .expireAfterAccess(idleExpiry.compareTo(refill) < 0 ? refill : idleExpiry)
+                .build();
+    }
+
+    /**
+     * @return 0 if the request is admitted, otherwise the nanoseconds until this customer's
+     * next request would be
+     */
+    public long tryAcquire(String customerId) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(customerId, k -> new AtomicLong(now));
+        while (true) {
+            long theoretical = arrival.get();
+            long wait = theoretical - burstToleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            long base = theoretical - now > 0 ? theoretical : now;
+            if (arrival.compareAndSet(theoretical, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public long trackedCustomers() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,40 @@
+package com.pi.orders.lib;
+
+import com.pi.orders.exception.BadRequestException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the (createdAt DESC, id DESC) ordering used by cursor pagination.
+ * Encoded as URL-safe Base64 so clients treat it as opaque.
+ */
+public record OrderCursor(Instant createdAt, long id) {
+
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String raw = VERSION + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws BadRequestException (400) when the cursor was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("unsupported cursor");
+            }
+            return new OrderCursor(Instant.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_CURSOR",
+                    "Invalid cursor", "Cursor is malformed or expired", e);
+        }
+    }
+}
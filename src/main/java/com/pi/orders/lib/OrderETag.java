@@ -0,0 +1,78 @@
+package com.pi.orders.lib;
+
+import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Entity tags for order responses.
+ * <p>
+ * A single order's tag is strong and derived from its id and updatedAt, which every change
+ * (create, cancel, promotion) rewrites; items never change after creation. It is truncated
+ * to the stored microsecond precision so a tag computed from a cached response equals one
+ * computed from the row. List tags are weak: a hash over what the page shows.
+ * <p>
+ * Reads are negotiated (JSON, CBOR, Smile) and each format is a different representation, so
+ * every tag includes the selected format: a cache that stored CBOR cannot revalidate it with
+ * the tag of the JSON body. Callers pass the media subtype ({@code json}, {@code cbor}, ...).
+ */
+public final class OrderETag {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private OrderETag() {
+    }
+
+    public static String of(long orderId, Instant updatedAt, String format) {
+        return "\"" + orderId + "-" + Long.toHexString(micros(updatedAt)) + "-" + format + "\"";
+    }
+
+    /**
+     * Weak tag over the format, the ids and modification times of a page's orders plus any page
+     * properties that change the body (page number, totals, cursor).
+     */
+    public static String weak(String format, Collection<OrderResponse> orders, Object... page) {
+        return hash(format, orders, OrderResponse::id, OrderResponse::updatedAt, page);
+    }
+
+    /**
+     * {@link #weak} for summary-view pages; callers add the view to {@code page} so the two
+     * representations of the same page get different tags.
+     */
+    public static String weakForSummaries(String format, Collection<OrderSummaryResponse> orders, Object... page) {
+        return hash(format, orders, OrderSummaryResponse::id, OrderSummaryResponse::updatedAt, page);
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private static <T> String hash(String format, Collection<T> orders, Function<T, Long> id,
+                                   Function<T, Instant> updatedAt, Object... page) {
+        long h = mix(FNV_OFFSET, format.hashCode());
+        for (T order : orders) {
+            Long orderId = id.apply(order);
+            h = mix(h, orderId == null ? 0L : orderId);
+            h = mix(h, micros(updatedAt.apply(order)));
+        }
+        for (Object value : page) {
+            h = mix(h, value == null ? 0L : value.hashCode());
+        }
+        return "W/\"" + Long.toHexString(h) + "\"";
+    }
+
+    private static long micros(Instant instant) {
+        return instant == null ? 0L : ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            h ^= (value >>> (i * 8)) & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
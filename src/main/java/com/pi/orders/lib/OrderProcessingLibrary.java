@@ -1,12 +1,41 @@
 package com.pi.orders.lib;
 
 import com.pi.orders.domain.Order;
+import com.pi.orders.domain.OrderItem;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.OrderItemRequest;
 import com.pi.orders.web.dto.OrderResponse;
 
+import java.util.List;
+
 public class OrderProcessingLibrary {
 
     public static OrderResponse toResponse(Order o) {
-        var items = o.getItems().stream().map(i -> new OrderResponse.Item(i.getSku(), i.getName(), i.getQuantity(), i.getUnitPrice(), i.lineTotal())).toList();
-        return new OrderResponse(o.getId(), o.getCustomerId(), items, o.getStatus(), o.total(), o.getCreatedAt(), o.getUpdatedAt());
+        var items = o.getItems().stream().map(i -> new OrderResponse.Item(i.getSku(), i.getName(), i.getQuantity(), i.getUnitPrice(), i.getLineTotal())).toList();
+        return new OrderResponse(o.getId(), o.getCustomerId(), items, o.getStatus(), o.getTotal(), o.getCreatedAt(), o.getUpdatedAt());
+    }
+
+    /**
+     * Build a new (unsaved) Order with its items and back-references set.
+     * Line totals and the order total are computed here, once, and persisted.
+     */
+    public static Order toOrder(CreateOrderRequest req) {
+        Order order = new Order();
+        order.setCustomerId(req.customerId());
+        List<OrderItem> items = req.items().stream().map(r -> toItem(r, order)).toList();
+        order.setItems(items);
+        order.setTotal(order.computeTotal());
+        return order;
+    }
+
+    private static OrderItem toItem(OrderItemRequest r, Order order) {
+        OrderItem i = new OrderItem();
+        i.setSku(r.sku());
+        i.setName(r.name());
+        i.setQuantity(r.quantity());
+        i.setUnitPrice(r.unitPrice());
+        i.setLineTotal(i.computeLineTotal());
+        i.setOrder(order);
+        return i;
     }
 }
@@ -0,0 +1,58 @@
+package com.pi.orders.repo;
+
+import com.pi.orders.domain.CustomerStatusSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CustomerStatusSummaryRepository extends JpaRepository<CustomerStatusSummary, CustomerStatusSummary.Key> {
+
+    /**
+     * At most one row per status, read by primary-key prefix.
+     */
+    List<CustomerStatusSummary> findByCustomerId(String customerId);
+
+    /**
+     * Next customers with orders after {@code afterCustomerId}, in customer_id order. Read off
+     * idx_orders_customer_created_id, stopping after {@code limit} customers.
+     */
+    @Query(nativeQuery = true, value = """
+               SELECT DISTINCT o.customer_id FROM orders o
+               WHERE o.customer_id > :afterCustomerId
+               ORDER BY o.customer_id
+               LIMIT :limit
+            """)
+    List<String> findOrderCustomersAfter(@Param("afterCustomerId") String afterCustomerId, @Param("limit") int limit);
+
+    /**
+     * Next customers with summary rows after {@code afterCustomerId}, in customer_id order (primary-key prefix).
+     */
+    @Query(nativeQuery = true, value = """
+               SELECT DISTINCT s.customer_id FROM customer_status_summary s
+               WHERE s.customer_id > :afterCustomerId
+               ORDER BY s.customer_id
+               LIMIT :limit
+            """)
+    List<String> findSummaryCustomersAfter(@Param("afterCustomerId") String afterCustomerId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM customer_status_summary WHERE customer_id IN (:customerIds)")
+    int deleteByCustomers(@Param("customerIds") Collection<String> customerIds);
+
+    /**
+     * Recompute the given customers' rows from the orders table.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+               INSERT INTO customer_status_summary (customer_id, status, order_count, order_value, last_created_at)
+               SELECT o.customer_id, o.status, COUNT(*), COALESCE(SUM(o.total), 0), MAX(o.created_at)
+               FROM orders o
+               WHERE o.customer_id IN (:customerIds) AND o.status IS NOT NULL
+               GROUP BY o.customer_id, o.status
+            """)
+    int insertFromOrders(@Param("customerIds") Collection<String> customerIds);
+}
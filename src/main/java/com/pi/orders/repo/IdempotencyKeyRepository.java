@@ -0,0 +1,40 @@
+package com.pi.orders.repo;
+
+import com.pi.orders.domain.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Claim a key. A plain INSERT (not a merge), so a key already stored or being stored by a
+     * concurrent transaction fails with a unique-key violation.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+               INSERT INTO idempotency_keys (idem_key, request_hash, order_id, created_at, response_body)
+               VALUES (:key, :requestHash, :orderId, :createdAt, :responseBody)
+            """)
+    int insert(@Param("key") String key,
+               @Param("requestHash") String requestHash,
+               @Param("orderId") long orderId,
+               @Param("createdAt") Instant createdAt,
+               @Param("responseBody") String responseBody);
+
+    /**
+     * Delete up to {@code limit} keys created before {@code cutoff}, oldest first.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+               DELETE FROM idempotency_keys
+               WHERE idem_key IN (SELECT k.idem_key FROM idempotency_keys k
+                                  WHERE k.created_at < :cutoff
+                                  ORDER BY k.created_at
+                                  LIMIT :limit)
+            """)
+    int deleteExpired(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
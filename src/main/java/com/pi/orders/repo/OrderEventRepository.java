@@ -0,0 +1,50 @@
+package com.pi.orders.repo;
+
+import com.pi.orders.domain.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    /**
+     * Oldest unpublished events first (primary key order).
+     */
+    @Query("SELECT e FROM OrderEvent e ORDER BY e.id")
+    List<OrderEvent> findOldest(Pageable pageable);
+
+    /**
+     * Creation events for a set of just-inserted orders, in one statement.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+               INSERT INTO order_events (order_id, customer_id, from_status, to_status, occurred_at)
+               SELECT o.id, o.customer_id, NULL, o.status, o.created_at
+               FROM orders o
+               WHERE o.id IN (:orderIds)
+               ORDER BY o.id
+            """)
+    int insertCreated(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Status-change events for orders a transition just changed; {@code orderIds} must be the ids
+     * that UPDATE reported, whose rows this transaction still holds locked in {@code to}.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+               INSERT INTO order_events (order_id, customer_id, from_status, to_status, occurred_at)
+               SELECT o.id, o.customer_id, :from, o.status, o.updated_at
+               FROM orders o
+               WHERE o.id IN (:orderIds)
+                 AND o.status = :to
+               ORDER BY o.id
+            """)
+    int insertStatusChanges(@Param("from") String from,
+                            @Param("to") String to,
+                            @Param("orderIds") Collection<Long> orderIds);
+}
@@ -1,7 +1,22 @@
 package com.pi.orders.repo;
 
 import com.pi.orders.domain.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /**
+     * Items whose stored line total is missing or differs from unitPrice * quantity.
+     */
+    @Query("""
+               SELECT i.id FROM OrderItem i
+               WHERE i.lineTotal IS NULL
+                  OR i.lineTotal <> i.unitPrice * i.quantity
+               ORDER BY i.id
+            """)
+    List<Long> findInconsistentLineTotals(Pageable pageable);
 }
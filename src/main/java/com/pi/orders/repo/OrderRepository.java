@@ -2,17 +2,20 @@ package com.pi.orders.repo;
 
 import com.pi.orders.domain.Order;
 import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.web.dto.OrderSummaryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByStatus(OrderStatus status);
 
     @Query("""
                SELECT o FROM Order o
@@ -25,4 +28,250 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                             Pageable pageable
     );
 
+    /**
+     * First keyset page for a customer in (createdAt DESC, id DESC) order; no count query.
+     */
+    @Query("""
+               SELECT o FROM Order o
+               WHERE o.customerId = :customerId
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+               ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<Order> findFirstKeysetPage(@Param("customerId") String customerId,
+                                    @Param("statuses") Collection<OrderStatus> statuses,
+                                    Pageable pageable);
+
+    /**
+     * Keyset page strictly after the (createdAt, id) position of the previous page's last row.
+     */
+    @Query("""
+               SELECT o FROM Order o
+               WHERE o.customerId = :customerId
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+                 AND ( o.createdAt < :createdAt
+                       OR ( o.createdAt = :createdAt AND o.id < :id ) )
+               ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<Order> findKeysetPageAfter(@Param("customerId") String customerId,
+                                    @Param("statuses") Collection<OrderStatus> statuses,
+                                    @Param("createdAt") Instant createdAt,
+                                    @Param("id") long id,
+                                    Pageable pageable);
+
+    /**
+     * Summary-view page: header columns only, straight into the DTO (no entities, no items).
+     */
+    @Query(value = """
+               SELECT new com.pi.orders.web.dto.OrderSummaryResponse(
+                          o.id, o.customerId, o.status, o.total, o.createdAt, o.updatedAt)
+               FROM Order o
+               WHERE o.customerId = :customerId
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+            """,
+            countQuery = """
+               SELECT COUNT(o) FROM Order o
+               WHERE o.customerId = :customerId
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+            """)
+    Page<OrderSummaryResponse> findSummariesByCustomerId(@Param("customerId") String customerId,
+                                                         @Param("statuses") Collection<OrderStatus> statuses,
+                                                         Pageable pageable);
+
+    /**
+     * Summary-view variant of {@link #findFirstKeysetPage}.
+     */
+    @Query("""
+               SELECT new com.pi.orders.web.dto.OrderSummaryResponse(
+                          o.id, o.customerId, o.status, o.total, o.createdAt, o.updatedAt)
+               FROM Order o
+               WHERE o.customerId = :customerId
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+               ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<OrderSummaryResponse> findFirstSummaryKeysetPage(@Param("customerId") String customerId,
+                                                          @Param("statuses") Collection<OrderStatus> statuses,
+                                                          Pageable pageable);
+
+    /**
+     * Summary-view variant of {@link #findKeysetPageAfter}.
+     */
+    @Query("""
+               SELECT new com.pi.orders.web.dto.OrderSummaryResponse(
+                          o.id, o.customerId, o.status, o.total, o.createdAt, o.updatedAt)
+               FROM Order o
+               WHERE o.customerId = :customerId
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+                 AND ( o.createdAt < :createdAt
+                       OR ( o.createdAt = :createdAt AND o.id < :id ) )
+               ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<OrderSummaryResponse> findSummaryKeysetPageAfter(@Param("customerId") String customerId,
+                                                          @Param("statuses") Collection<OrderStatus> statuses,
+                                                          @Param("createdAt") Instant createdAt,
+                                                          @Param("id") long id,
+                                                          Pageable pageable);
+
+    /**
+     * First page of the orders containing {@code sku}, newest first, as summaries. A semi-join:
+     * the subquery is answered from idx_order_items_sku_order alone, each order is read once by
+     * primary key however many of its lines carry the SKU, and no items or entities are loaded.
+     * {@code from} (inclusive) and {@code to} (exclusive) bound createdAt when not null.
+     */
+    @Query("""
+               SELECT new com.pi.orders.web.dto.OrderSummaryResponse(
+                          o.id, o.customerId, o.status, o.total, o.createdAt, o.updatedAt)
+               FROM Order o
+               WHERE o.id IN (SELECT i.order.id FROM OrderItem i WHERE i.sku = :sku)
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+                 AND ( :#{#from == null} = true OR o.createdAt >= :from )
+                 AND ( :#{#to == null} = true OR o.createdAt < :to )
+               ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<OrderSummaryResponse> findFirstSummaryPageBySku(@Param("sku") String sku,
+                                                         @Param("statuses") Collection<OrderStatus> statuses,
+                                                         @Param("from") Instant from,
+                                                         @Param("to") Instant to,
+                                                         Pageable pageable);
+
+    /**
+     * Next page of {@link #findFirstSummaryPageBySku}, after the cursor position (createdAt, id).
+     */
+    @Query("""
+               SELECT new com.pi.orders.web.dto.OrderSummaryResponse(
+                          o.id, o.customerId, o.status, o.total, o.createdAt, o.updatedAt)
+               FROM Order o
+               WHERE o.id IN (SELECT i.order.id FROM OrderItem i WHERE i.sku = :sku)
+                 AND ( :#{#statuses == null || #statuses.isEmpty()} = true
+                       OR o.status IN :statuses )
+                 AND ( :#{#from == null} = true OR o.createdAt >= :from )
+                 AND ( :#{#to == null} = true OR o.createdAt < :to )
+                 AND ( o.createdAt < :createdAt
+                       OR ( o.createdAt = :createdAt AND o.id < :id ) )
+               ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<OrderSummaryResponse> findSummaryPageBySkuAfter(@Param("sku") String sku,
+                                                         @Param("statuses") Collection<OrderStatus> statuses,
+                                                         @Param("from") Instant from,
+                                                         @Param("to") Instant to,
+                                                         @Param("createdAt") Instant createdAt,
+                                                         @Param("id") long id,
+                                                         Pageable pageable);
+
+    /**
+     * Modification time of one order, read from its row alone (no items, no entity).
+     */
+    @Query("SELECT o.updatedAt FROM Order o WHERE o.id = :id")
+    Optional<Instant> findUpdatedAtById(@Param("id") long id);
+
+    /**
+     * Orders whose stored total is missing or differs from the sum of their stored line totals.
+     */
+    @Query("""
+               SELECT o.id FROM Order o
+               WHERE o.total IS NULL
+                  OR o.total <> ( SELECT COALESCE(SUM(i.lineTotal), 0) FROM OrderItem i WHERE i.order = o )
+               ORDER BY o.id
+            """)
+    List<Long> findInconsistentTotals(Pageable pageable);
+
+    /**
+     * Creation time of the oldest order in a status. Ordered by createdAt, not id: pooled
+     * sequence ids are handed out in blocks per node, so id order is not creation order.
+     * Read off idx_orders_status_created: one index entry however many orders are in the
+     * status. The order names both index columns (status is fixed) so H2 uses the index for it.
+     */
+    @Query("SELECT o.createdAt FROM Order o WHERE o.status = :status ORDER BY o.status, o.createdAt")
+    List<Instant> findCreatedAtOfOldest(@Param("status") OrderStatus status, Pageable pageable);
+
+    /**
+     * Keyset step over orders in a status created at or before {@code createdBefore}:
+     * ids strictly after {@code afterId}, ascending.
+     * Only the page size of the {@link Pageable} is used; no count query is issued.
+     */
+    @Query("""
+               SELECT o.id FROM Order o
+               WHERE o.status = :status
+                 AND o.id > :afterId
+                 AND o.createdAt <= :createdBefore
+               ORDER BY o.id
+            """)
+    List<Long> findIdsByStatusAfter(@Param("status") OrderStatus status,
+                                    @Param("afterId") long afterId,
+                                    @Param("createdBefore") Instant createdBefore,
+                                    Pageable pageable);
+
+    /**
+     * Keyset step over orders in a status with their creation time, for rebuilding the promotion schedule.
+     */
+    @Query("""
+               SELECT new com.pi.orders.repo.PendingOrder(o.id, o.createdAt) FROM Order o
+               WHERE o.status = :status
+                 AND o.id > :afterId
+               ORDER BY o.id
+            """)
+    List<PendingOrder> findPendingAfter(@Param("status") OrderStatus status,
+                                        @Param("afterId") long afterId,
+                                        Pageable pageable);
+
+    /**
+     * Bulk status transition for one keyset chunk; bypasses the persistence context
+     * but bumps the version, so stale entity writes still fail their optimistic check.
+     * <p>
+     * Returns the ids of exactly the rows this UPDATE changed (H2 data change delta table), so the
+     * outbox and summary writes that follow select those rows by id rather than by any column value
+     * a concurrent writer could also produce. The rows stay locked until the transaction ends.
+     */
+    @Query(nativeQuery = true, value = """
+               SELECT id FROM FINAL TABLE (
+                   UPDATE orders SET status = :#{#to.name()}, updated_at = :now, version = version + 1
+                   WHERE status = :#{#from.name()}
+                     AND id BETWEEN :firstId AND :lastId
+                     AND created_at <= :createdBefore)
+               ORDER BY id
+            """)
+    List<Long> updateStatusInRange(@Param("from") OrderStatus from,
+                                   @Param("to") OrderStatus to,
+                                   @Param("firstId") long firstId,
+                                   @Param("lastId") long lastId,
+                                   @Param("createdBefore") Instant createdBefore,
+                                   @Param("now") Instant now);
+
+    /**
+     * Status transition for an explicit set of orders (those still in {@code from});
+     * returns the ids it changed, as {@link #updateStatusInRange} does.
+     */
+    @Query(nativeQuery = true, value = """
+               SELECT id FROM FINAL TABLE (
+                   UPDATE orders SET status = :#{#to.name()}, updated_at = :now, version = version + 1
+                   WHERE status = :#{#from.name()}
+                     AND id IN (:ids))
+               ORDER BY id
+            """)
+    List<Long> updateStatusForIds(@Param("from") OrderStatus from,
+                                  @Param("to") OrderStatus to,
+                                  @Param("ids") Collection<Long> ids,
+                                  @Param("now") Instant now);
+
+    /**
+     * Compare-and-set status transition of one order: changes it only while it is still in {@code from}.
+     *
+     * @return 1 when the transition happened; 0 when the order is missing or no longer in {@code from}
+     */
+    @Modifying
+    @Query("""
+               UPDATE Order o SET o.status = :to, o.updatedAt = :now, o.version = o.version + 1
+               WHERE o.id = :id
+                 AND o.status = :from
+            """)
+    int updateStatusIfCurrent(@Param("id") long id,
+                              @Param("from") OrderStatus from,
+                              @Param("to") OrderStatus to,
+                              @Param("now") Instant now);
 }
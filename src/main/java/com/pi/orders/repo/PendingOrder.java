@@ -0,0 +1,9 @@
+package com.pi.orders.repo;
+
+import java.time.Instant;
+
+/**
+ * Id and creation time of an order awaiting promotion; what the promotion scheduler tracks.
+ */
+public record PendingOrder(long id, Instant createdAt) {
+}
@@ -0,0 +1,49 @@
+package com.pi.orders.service;
+
+import com.pi.orders.exception.BadRequestException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the order history export.
+ */
+public enum ExportFormat {
+    /**
+     * One {@code OrderResponse} JSON object (with items) per line.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"),
+    /**
+     * One row per order item, order columns repeated; orders without items get one row with empty item columns.
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * @throws BadRequestException (400) for anything other than {@code ndjson} or {@code csv}
+     */
+    public static ExportFormat fromParam(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_EXPORT_FORMAT",
+                    "Invalid export format", "format must be one of ndjson, csv", e);
+        }
+    }
+}
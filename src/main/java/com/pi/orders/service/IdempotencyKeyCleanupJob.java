@@ -0,0 +1,72 @@
+package com.pi.orders.service;
+
+import com.pi.orders.repo.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Purges Idempotency-Keys older than {@code orders.idempotency.ttl}, so the store stays
+ * bounded. Deletes in batches of {@code orders.idempotency.cleanup.batch-size}, each in its
+ * own short transaction; one run at a time cluster-wide (ShedLock). A key is honoured for
+ * at least the TTL and until the next run after it.
+ */
+@Component
+@Log4j2
+public class IdempotencyKeyCleanupJob {
+    public static final String LOCK_NAME = "IdempotencyKeyCleanupJob.cleanup";
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int batchSize;
+    private final Counter purged;
+
+    public IdempotencyKeyCleanupJob(IdempotencyKeyRepository keyRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry registry,
+                                    @Value("${orders.idempotency.ttl:PT24H}") Duration ttl,
+                                    @Value("${orders.idempotency.cleanup.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("orders.idempotency.cleanup.batch-size must be positive");
+        }
+        this.keyRepository = keyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.purged = Counter.builder("orders.idempotency.purged")
+                .description("Expired Idempotency-Keys deleted")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.idempotency.cleanup.fixed-delay-ms:600000}")
+    @SchedulerLock(name = LOCK_NAME,
+            lockAtMostFor = "PT10M")
+    public void cleanup() {
+        int count = purgeBefore(Instant.now().minus(ttl));
+        if (count > 0) log.info("[idempotencyCleanup] purged={}", count);
+    }
+
+    /**
+     * @return number of keys deleted
+     */
+    public int purgeBefore(Instant cutoff) {
+        int total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(tx -> keyRepository.deleteExpired(cutoff, batchSize));
+            int n = deleted == null ? 0 : deleted;
+            purged.increment(n);
+            total += n;
+            if (n < batchSize) return total;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.pi.orders.service;
+
+import com.pi.orders.web.dto.OrderResponse;
+
+/**
+ * Outcome of an idempotent create.
+ *
+ * @param replayed true when the key had been used before and no order was created by this call
+ */
+public record IdempotentCreate(OrderResponse order, boolean replayed) {
+}
@@ -0,0 +1,7 @@
+package com.pi.orders.service;
+
+/**
+ * Totals for one bulk-ingest stream.
+ */
+public record IngestSummary(long lines, long created, long rejected) {
+}
@@ -0,0 +1,16 @@
+package com.pi.orders.service;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay.
+ * <p>
+ * {@link #publish} must return only once the whole batch is durably handed over; the relay
+ * deletes the rows afterwards. Throwing leaves the batch in the outbox to be retried, so a
+ * batch may be delivered more than once but never partially skipped. Events arrive in
+ * outbox id order.
+ */
+public interface OrderEventPublisher {
+
+    void publish(List<OrderStatusChanged> events) throws Exception;
+}
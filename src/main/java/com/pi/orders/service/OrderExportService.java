@@ -0,0 +1,22 @@
+package com.pi.orders.service;
+
+import com.pi.orders.domain.OrderStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+
+public interface OrderExportService {
+
+    /**
+     * Write every order of {@code customerId} (oldest first, with items) to {@code out} as rows are read.
+     *
+     * @param statuses optional status filter; null or empty means all statuses
+     * @param from     optional inclusive lower bound on createdAt
+     * @param to       optional exclusive upper bound on createdAt
+     * @return number of orders written
+     */
+    long export(String customerId, List<OrderStatus> statuses, Instant from, Instant to,
+                ExportFormat format, OutputStream out) throws IOException;
+}
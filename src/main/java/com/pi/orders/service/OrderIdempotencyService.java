@@ -0,0 +1,12 @@
+package com.pi.orders.service;
+
+import com.pi.orders.web.dto.CreateOrderRequest;
+
+public interface OrderIdempotencyService {
+
+    /**
+     * Create the order once per {@code idempotencyKey}; repeats (including concurrent ones)
+     * get the order of the first request without running the create again.
+     */
+    IdempotentCreate createOrder(String idempotencyKey, CreateOrderRequest request);
+}
@@ -0,0 +1,14 @@
+package com.pi.orders.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface OrderIngestService {
+
+    /**
+     * Read newline-delimited {@code CreateOrderRequest} records from {@code ndjson} and write one
+     * {@code IngestLineResult} line per input record to {@code results} as batches complete.
+     */
+    IngestSummary ingest(InputStream ndjson, OutputStream results) throws IOException;
+}
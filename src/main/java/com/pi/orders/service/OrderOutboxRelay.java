@@ -0,0 +1,120 @@
+package com.pi.orders.service;
+
+import com.pi.orders.domain.OrderEvent;
+import com.pi.orders.repo.OrderEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the order event outbox to the {@link OrderEventPublisher}.
+ * <p>
+ * One relay runs at a time cluster-wide (ShedLock). Each step reads the oldest
+ * {@code orders.outbox.relay.batch-size} events, publishes them, then deletes exactly
+ * those rows in one short transaction. A failed publish or delete stops the run and the
+ * same rows are retried next time: delivery is at least once, and because events are read
+ * in id order and a failure never skips ahead, events of one order are delivered in order.
+ */
+@Component
+@Log4j2
+public class OrderOutboxRelay {
+    public static final String LOCK_NAME = "OrderOutboxRelay.relay";
+
+    private final OrderEventRepository eventRepository;
+    private final OrderEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Timer batchDuration;
+    private final Counter published;
+    private final Counter failures;
+
+    public OrderOutboxRelay(OrderEventRepository eventRepository,
+                            OrderEventPublisher publisher,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry registry,
+                            @Value("${orders.outbox.relay.batch-size:500}") int batchSize,
+                            @Value("${orders.outbox.relay.max-batches-per-run:100}") int maxBatchesPerRun) {
+        if (batchSize < 1 || maxBatchesPerRun < 1) {
+            throw new IllegalArgumentException("orders.outbox.relay.batch-size and max-batches-per-run must be positive");
+        }
+        this.eventRepository = eventRepository;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.batchDuration = Timer.builder("orders.outbox.relay.batch")
+                .description("Publish + delete of one outbox batch")
+                .register(registry);
+        this.published = Counter.builder("orders.outbox.published")
+                .description("Order events handed to the publisher")
+                .register(registry);
+        this.failures = Counter.builder("orders.outbox.publish.failures")
+                .description("Outbox batches that failed and will be retried")
+                .register(registry);
+        // evaluated on scrape; the outbox only holds unpublished rows, so it stays small
+        Gauge.builder("orders.outbox.backlog", this, OrderOutboxRelay::backlog)
+                .description("Order events waiting in the outbox")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.outbox.relay.fixed-delay-ms:1000}")
+    @SchedulerLock(name = LOCK_NAME,
+            lockAtMostFor = "PT1M")
+    public void relay() {
+        int count = drain();
+        if (count > 0) log.info("[outboxRelay] published={}", count);
+    }
+
+    /**
+     * Publish batches until the outbox is empty, a step fails, or the per-run cap is reached.
+     *
+     * @return number of events published and removed
+     */
+    public int drain() {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<OrderEvent> batch = eventRepository.findOldest(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) break;
+
+            long start = System.nanoTime();
+            try {
+                publisher.publish(batch.stream().map(OrderStatusChanged::of).toList());
+                List<Long> ids = batch.stream().map(OrderEvent::getId).toList();
+                transactionTemplate.executeWithoutResult(tx -> eventRepository.deleteAllByIdInBatch(ids));
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("[outboxRelay] batch from eventId={} size={} failed, will retry cause={}",
+                        batch.get(0).getId(), batch.size(), e.toString());
+                break;
+            } finally {
+                batchDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            published.increment(batch.size());
+            total += batch.size();
+            if (batch.size() < batchSize) break;
+        }
+        return total;
+    }
+
+    private double backlog() {
+        try {
+            return eventRepository.count();
+        } catch (Exception e) {
+            log.warn("[metrics] outbox backlog unavailable cause={}", e.toString());
+            return Double.NaN;
+        }
+    }
+}
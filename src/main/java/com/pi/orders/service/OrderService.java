@@ -2,11 +2,14 @@ package com.pi.orders.service;
 
 import com.pi.orders.domain.OrderStatus;
 import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.CursorPage;
 import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -16,9 +19,33 @@ public interface OrderService {
 
     OrderResponse getOrderDetails(Long orderId);
 
+    /**
+     * Last modification time of an order, for conditional GETs; does not load items.
+     */
+    Instant getOrderLastModified(Long orderId);
+
     Page<OrderResponse> listOrders(String customerId, List<OrderStatus> orderStatusList, Pageable pageable);
 
-    int updateOrders();
+    CursorPage<OrderResponse> listOrders(String customerId, List<OrderStatus> orderStatusList, String cursor, int size);
+
+    /**
+     * Summary view of {@link #listOrders(String, List, Pageable)}: headers only, items are never read.
+     */
+    Page<OrderSummaryResponse> listOrderSummaries(String customerId, List<OrderStatus> orderStatusList, Pageable pageable);
+
+    /**
+     * Summary view of {@link #listOrders(String, List, String, int)}; cursors are interchangeable.
+     */
+    CursorPage<OrderSummaryResponse> listOrderSummaries(String customerId, List<OrderStatus> orderStatusList, String cursor, int size);
+
+    /**
+     * Orders with {@code sku} on any line, newest first, headers only; optionally filtered by status
+     * and by createdAt in [from, to). Cursor pages, same cursor format as the listings.
+     */
+    CursorPage<OrderSummaryResponse> findOrdersBySku(String sku, List<OrderStatus> orderStatusList, Instant from, Instant to,
+                                                     String cursor, int size);
+
+    PromotionResult updateOrders();
 
     OrderResponse cancelOrder(Long orderId);
 
@@ -0,0 +1,19 @@
+package com.pi.orders.service;
+
+import com.pi.orders.domain.OrderEvent;
+import com.pi.orders.domain.OrderStatus;
+
+import java.time.Instant;
+
+/**
+ * Published form of an outbox row. {@code eventId} is unique and increases per order;
+ * consumers use it to drop redeliveries. {@code fromStatus} is null for a newly created order.
+ */
+public record OrderStatusChanged(long eventId, long orderId, String customerId,
+                                 OrderStatus fromStatus, OrderStatus toStatus, Instant occurredAt) {
+
+    public static OrderStatusChanged of(OrderEvent e) {
+        return new OrderStatusChanged(e.getId(), e.getOrderId(), e.getCustomerId(),
+                e.getFromStatus(), e.getToStatus(), e.getOccurredAt());
+    }
+}
@@ -0,0 +1,24 @@
+package com.pi.orders.service;
+
+import com.pi.orders.web.dto.CustomerOrderSummary;
+
+public interface OrderSummaryService {
+
+    /**
+     * Current figures for one customer; cost does not depend on the number of orders.
+     */
+    CustomerOrderSummary getSummary(String customerId);
+
+    /**
+     * Recompute one customer's summary from the orders table (drift repair).
+     */
+    CustomerOrderSummary rebuild(String customerId);
+
+    /**
+     * Recompute every customer's summary from the orders table, in batches of customers with one
+     * transaction each; reads all orders. An operator task ({@code SummaryRebuildRunner}), not an endpoint.
+     *
+     * @return number of summary rows written
+     */
+    int rebuildAll();
+}
@@ -1,25 +1,101 @@
 package com.pi.orders.service;
 
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 @Component
 @Log4j2
 public class PendingPromotionJob {
+    public static final String LOCK_NAME = "PendingPromotionJob.promote";
+
     private final OrderService service;
+    private final OrderRepository orderRepository;
+    private final Timer runDuration;
+    private final Counter promoted;
+    private final long oldestPendingTtlNanos;
+    // last lookup of the oldest PENDING order; null = not read yet
+    private final AtomicReference<OldestPending> oldestPending = new AtomicReference<>();
 
-    public PendingPromotionJob(OrderService service) {
+    public PendingPromotionJob(OrderService service, OrderRepository orderRepository, MeterRegistry registry,
+                               @Value("${orders.pending.oldest.ttl:PT15S}") Duration oldestPendingTtl) {
+        if (oldestPendingTtl.isNegative()) {
+            throw new IllegalArgumentException("orders.pending.oldest.ttl must not be negative");
+        }
         this.service = service;
+        this.orderRepository = orderRepository;
+        this.oldestPendingTtlNanos = oldestPendingTtl.toNanos();
+        this.runDuration = Timer.builder("orders.jobs.promote.duration")
+                .description("Duration of a PENDING -> PROCESSING promotion run")
+                .register(registry);
+        this.promoted = Counter.builder("orders.jobs.promote.promoted")
+                .description("Orders promoted PENDING -> PROCESSING")
+                .register(registry);
+        // evaluated on scrape, one index lookup at most every orders.pending.oldest.ttl; on every node,
+        // whether or not it holds the promotion lock
+        Gauge.builder("orders.pending.oldest.age", this, PendingPromotionJob::oldestPendingAgeSeconds)
+                .description("Age of the oldest PENDING order (0 when none)")
+                .baseUnit("seconds")
+                .register(registry);
     }
 
-    @Scheduled(fixedRate = "${orders.jobs.promote.fixed-rate-ms:300000}")
-    @SchedulerLock(name = "PendingPromotionJob.promote",
+    @Scheduled(fixedRateString = "${orders.jobs.promote.fixed-rate-ms:300000}")
+    @SchedulerLock(name = LOCK_NAME,
             lockAtMostFor = "PT4M",
             lockAtLeastFor = "PT30S")
     public void promote() {
-        int n = service.updateOrders();
-        if (n > 0) log.info("Promoted {} orders PENDING -> PROCESSING", n);
+        long start = System.nanoTime();
+        try {
+            PromotionResult result = service.updateOrders();
+            promoted.increment(result.promoted());
+            if (result.promoted() > 0) log.info("Promoted {} orders PENDING -> PROCESSING in {} chunks ({} ms)",
+                    result.promoted(), result.chunks().size(), result.elapsedMillis());
+        } finally {
+            runDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double oldestPendingAgeSeconds() {
+        OldestPending last = oldestPending.get();
+        if (last == null || System.nanoTime() - last.readAtNanos() >= oldestPendingTtlNanos) {
+            last = readOldestPending();
+            oldestPending.set(last);
+        }
+        if (last.createdAt() == null) return Double.NaN;
+        if (Instant.EPOCH.equals(last.createdAt())) return 0d;
+        return Math.max(0d, Duration.between(last.createdAt(), Instant.now()).toMillis() / 1000d);
+    }
+
+    private OldestPending readOldestPending() {
+        Instant createdAt;
+        try {
+            List<Instant> oldest = orderRepository.findCreatedAtOfOldest(OrderStatus.PENDING, PageRequest.of(0, 1));
+            createdAt = oldest.isEmpty() || oldest.get(0) == null ? Instant.EPOCH : oldest.get(0);
+        } catch (Exception e) {
+            log.warn("[metrics] oldest pending age unavailable cause={}", e.toString());
+            createdAt = null;
+        }
+        return new OldestPending(createdAt, System.nanoTime());
+    }
+
+    /**
+     * @param createdAt creation time of the oldest PENDING order; EPOCH = none, null = lookup failed
+     */
+    private record OldestPending(Instant createdAt, long readAtNanos) {
     }
 }
@@ -0,0 +1,27 @@
+package com.pi.orders.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a chunked status promotion run.
+ *
+ * @param promoted total rows moved to the target status
+ * @param chunks   one entry per short transaction, in keyset order
+ */
+public record PromotionResult(int promoted, List<Chunk> chunks) {
+
+    public long elapsedMillis() {
+        return chunks.stream().mapToLong(Chunk::elapsedMillis).sum();
+    }
+
+    /**
+     * A single keyset chunk: the id window that was updated, how many rows changed
+     * and how long the transaction took (including commit).
+     */
+    public record Chunk(long firstId, long lastId, int promoted, long elapsedMillis) {
+
+        public Chunk withElapsedMillis(long millis) {
+            return new Chunk(firstId, lastId, promoted, millis);
+        }
+    }
+}
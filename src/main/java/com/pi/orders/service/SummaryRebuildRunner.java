@@ -0,0 +1,31 @@
+package com.pi.orders.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes every customer's summary from the orders table (drift repair after manual SQL or
+ * a restore). Runs once at startup when {@code orders.summary.rebuild-all.enabled=true}; it reads
+ * every order, so it is off by default and meant to be switched on for one start by an operator.
+ * The HTTP endpoint only rebuilds one customer.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "orders.summary.rebuild-all.enabled", havingValue = "true")
+public class SummaryRebuildRunner implements ApplicationRunner {
+
+    private final OrderSummaryService summaryService;
+
+    public SummaryRebuildRunner(OrderSummaryService summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int rows = summaryService.rebuildAll();
+        log.info("[summaryRebuild] rebuilt all customer summaries rows={}; unset orders.summary.rebuild-all.enabled", rows);
+    }
+}
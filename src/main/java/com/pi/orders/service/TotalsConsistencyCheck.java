@@ -0,0 +1,45 @@
+package com.pi.orders.service;
+
+import com.pi.orders.repo.OrderItemRepository;
+import com.pi.orders.repo.OrderRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Verifies persisted totals against the items they were computed from.
+ * Runs once at startup when {@code orders.totals.consistency-check.enabled=true};
+ * it scans both tables, so it is off by default.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "orders.totals.consistency-check.enabled", havingValue = "true")
+public class TotalsConsistencyCheck implements ApplicationRunner {
+    private static final int SAMPLE = 100;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    public TotalsConsistencyCheck(OrderRepository orderRepository, OrderItemRepository orderItemRepository) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        List<Long> items = orderItemRepository.findInconsistentLineTotals(PageRequest.of(0, SAMPLE));
+        List<Long> orders = orderRepository.findInconsistentTotals(PageRequest.of(0, SAMPLE));
+        if (items.isEmpty() && orders.isEmpty()) {
+            log.info("[totalsCheck] stored line totals and order totals are consistent");
+            return;
+        }
+        log.warn("[totalsCheck] inconsistent totals (first {} each) itemIds={} orderIds={}", SAMPLE, items, orders);
+    }
+}
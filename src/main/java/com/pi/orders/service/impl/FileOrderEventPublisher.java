@@ -0,0 +1,63 @@
+package com.pi.orders.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pi.orders.service.OrderEventPublisher;
+import com.pi.orders.service.OrderStatusChanged;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Local publisher: appends each batch as NDJSON to {@code orders.outbox.file.path} and forces
+ * it to disk before returning. Selected with {@code orders.outbox.publisher=file} (the default).
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "orders.outbox.publisher", havingValue = "file", matchIfMissing = true)
+public class FileOrderEventPublisher implements OrderEventPublisher, DisposableBean {
+
+    private static final byte NEWLINE = '\n';
+
+    private final ObjectWriter eventWriter;
+    private final FileChannel channel;
+
+    public FileOrderEventPublisher(ObjectMapper objectMapper,
+                                   @Value("${orders.outbox.file.path:./data/order-events.ndjson}") Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        this.eventWriter = objectMapper.writerFor(OrderStatusChanged.class);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.info("[outbox] publishing order events to {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void publish(List<OrderStatusChanged> events) throws IOException {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(events.size() * 160);
+        for (OrderStatusChanged event : events) {
+            batch.write(eventWriter.writeValueAsBytes(event));
+            batch.write(NEWLINE);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        channel.close();
+    }
+}
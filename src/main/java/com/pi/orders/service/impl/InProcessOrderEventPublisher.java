@@ -0,0 +1,27 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.service.OrderEventPublisher;
+import com.pi.orders.service.OrderStatusChanged;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes each event as a Spring application event to {@code @EventListener}s in this JVM,
+ * synchronously; a failing listener fails the batch. Selected with {@code orders.outbox.publisher=in-process}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "orders.outbox.publisher", havingValue = "in-process")
+public class InProcessOrderEventPublisher implements OrderEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<OrderStatusChanged> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,210 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.service.OrderService;
+import com.pi.orders.service.PromotionResult;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.CursorPage;
+import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers around {@link OrderServiceImpl}: {@code orders.service{method, outcome}}.
+ * <p>
+ * Timers are registered once up front and recorded with plain nanoTime arithmetic, so the
+ * happy path allocates nothing (no Timer.Sample, no tag lookups). Being {@link Primary},
+ * this is the {@link OrderService} the controller and the jobs get.
+ */
+@Service
+@Primary
+public class MeteredOrderService implements OrderService {
+
+    private final OrderService delegate;
+    private final MethodTimers createOrder;
+    private final MethodTimers getOrderDetails;
+    private final MethodTimers getOrderLastModified;
+    private final MethodTimers listOrders;
+    private final MethodTimers listOrdersByCursor;
+    private final MethodTimers listOrderSummaries;
+    private final MethodTimers listOrderSummariesByCursor;
+    private final MethodTimers findOrdersBySku;
+    private final MethodTimers updateOrders;
+    private final MethodTimers cancelOrder;
+
+    public MeteredOrderService(OrderServiceImpl delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.createOrder = MethodTimers.register(registry, "createOrder");
+        this.getOrderDetails = MethodTimers.register(registry, "getOrderDetails");
+        this.getOrderLastModified = MethodTimers.register(registry, "getOrderLastModified");
+        this.listOrders = MethodTimers.register(registry, "listOrders");
+        this.listOrdersByCursor = MethodTimers.register(registry, "listOrdersByCursor");
+        this.listOrderSummaries = MethodTimers.register(registry, "listOrderSummaries");
+        this.listOrderSummariesByCursor = MethodTimers.register(registry, "listOrderSummariesByCursor");
+        this.findOrdersBySku = MethodTimers.register(registry, "findOrdersBySku");
+        this.updateOrders = MethodTimers.register(registry, "updateOrders");
+        this.cancelOrder = MethodTimers.register(registry, "cancelOrder");
+    }
+
+    @Override
+    public OrderResponse createOrder(CreateOrderRequest createOrderRequest) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            OrderResponse response = delegate.createOrder(createOrderRequest);
+            ok = true;
+            return response;
+        } finally {
+            createOrder.record(start, ok);
+        }
+    }
+
+    @Override
+    public OrderResponse getOrderDetails(Long orderId) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            OrderResponse response = delegate.getOrderDetails(orderId);
+            ok = true;
+            return response;
+        } finally {
+            getOrderDetails.record(start, ok);
+        }
+    }
+
+    @Override
+    public Instant getOrderLastModified(Long orderId) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            Instant lastModified = delegate.getOrderLastModified(orderId);
+            ok = true;
+            return lastModified;
+        } finally {
+            getOrderLastModified.record(start, ok);
+        }
+    }
+
+    @Override
+    public Page<OrderResponse> listOrders(String customerId, List<OrderStatus> orderStatusList, Pageable pageable) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            Page<OrderResponse> page = delegate.listOrders(customerId, orderStatusList, pageable);
+            ok = true;
+            return page;
+        } finally {
+            listOrders.record(start, ok);
+        }
+    }
+
+    @Override
+    public CursorPage<OrderResponse> listOrders(String customerId, List<OrderStatus> orderStatusList, String cursor, int size) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            CursorPage<OrderResponse> page = delegate.listOrders(customerId, orderStatusList, cursor, size);
+            ok = true;
+            return page;
+        } finally {
+            listOrdersByCursor.record(start, ok);
+        }
+    }
+
+    @Override
+    public Page<OrderSummaryResponse> listOrderSummaries(String customerId, List<OrderStatus> orderStatusList, Pageable pageable) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            Page<OrderSummaryResponse> page = delegate.listOrderSummaries(customerId, orderStatusList, pageable);
+            ok = true;
+            return page;
+        } finally {
+            listOrderSummaries.record(start, ok);
+        }
+    }
+
+    @Override
+    public CursorPage<OrderSummaryResponse> listOrderSummaries(String customerId, List<OrderStatus> orderStatusList, String cursor, int size) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            CursorPage<OrderSummaryResponse> page = delegate.listOrderSummaries(customerId, orderStatusList, cursor, size);
+            ok = true;
+            return page;
+        } finally {
+            listOrderSummariesByCursor.record(start, ok);
+        }
+    }
+
+    @Override
+    public CursorPage<OrderSummaryResponse> findOrdersBySku(String sku, List<OrderStatus> orderStatusList, Instant from, Instant to,
+                                                            String cursor, int size) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            CursorPage<OrderSummaryResponse> page = delegate.findOrdersBySku(sku, orderStatusList, from, to, cursor, size);
+            ok = true;
+            return page;
+        } finally {
+            findOrdersBySku.record(start, ok);
+        }
+    }
+
+    @Override
+    public PromotionResult updateOrders() {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            PromotionResult result = delegate.updateOrders();
+            ok = true;
+            return result;
+        } finally {
+            updateOrders.record(start, ok);
+        }
+    }
+
+    @Override
+    public OrderResponse cancelOrder(Long orderId) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            OrderResponse response = delegate.cancelOrder(orderId);
+            ok = true;
+            return response;
+        } finally {
+            cancelOrder.record(start, ok);
+        }
+    }
+
+    /**
+     * Pre-registered success/error timers of one service method.
+     */
+    private record MethodTimers(Timer success, Timer error) {
+
+        static MethodTimers register(MeterRegistry registry, String method) {
+            return new MethodTimers(timer(registry, method, "success"), timer(registry, method, "error"));
+        }
+
+        private static Timer timer(MeterRegistry registry, String method, String outcome) {
+            return Timer.builder("orders.service")
+                    .description("OrderService method latency")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+
+        void record(long startNanos, boolean ok) {
+            (ok ? success : error).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.configuration.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts cached {@code OrderResponse}s for orders whose state changed.
+ * <p>
+ * Inside a transaction the eviction runs after completion, so readers cannot re-cache the
+ * pre-commit row. Cache loads are synchronized per key ({@code @Cacheable(sync = true)}),
+ * so an eviction waits for an in-flight load of the same id and removes what it stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    public void evict(Long orderId) {
+        evictAll(List.of(orderId));
+    }
+
+    public void evictAll(Collection<Long> orderIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.ORDERS_CACHE);
+        if (cache == null || orderIds.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    orderIds.forEach(cache::evict);
+                }
+            });
+        } else {
+            orderIds.forEach(cache::evict);
+        }
+    }
+}
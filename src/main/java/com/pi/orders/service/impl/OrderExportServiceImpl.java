@@ -0,0 +1,267 @@
+package com.pi.orders.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.exception.BadRequestException;
+import com.pi.orders.service.ExportFormat;
+import com.pi.orders.service.OrderExportService;
+import com.pi.orders.web.dto.OrderResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming export of a customer's order history.
+ * <p>
+ * One forward-only, read-only query joins orders with their items, ordered by
+ * (createdAt, id), and is read {@code orders.export.fetch-size} rows per round trip.
+ * Each row is written as soon as it is read; only the items of the current order are
+ * held (NDJSON), so heap use does not grow with the history size. No count query and no
+ * entities or persistence context are involved. The connection is held for the whole
+ * download.
+ */
+@Service
+@Log4j2
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final String SELECT = """
+            SELECT o.id, o.customer_id, o.status, o.total, o.created_at, o.updated_at,
+                   i.sku, i.name, i.quantity, i.unit_price, i.line_total
+            FROM orders o
+            LEFT JOIN order_items i ON i.order_id = o.id
+            WHERE o.customer_id = :customerId""";
+    private static final String ORDER_BY = " ORDER BY o.created_at, o.id, i.id";
+
+    static final String CSV_HEADER =
+            "order_id,customer_id,status,order_total,created_at,updated_at,sku,name,quantity,unit_price,line_total";
+    private static final byte NEWLINE = '\n';
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ObjectWriter orderWriter;
+
+    public OrderExportServiceImpl(DataSource dataSource,
+                                  ObjectMapper objectMapper,
+                                  @Value("${orders.export.fetch-size:500}") int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("orders.export.fetch-size must be positive");
+        }
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbc = new NamedParameterJdbcTemplate(template);
+        this.orderWriter = objectMapper.writerFor(OrderResponse.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long export(String customerId, List<OrderStatus> statuses, Instant from, Instant to,
+                       ExportFormat format, OutputStream out) throws IOException {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_DATE_RANGE",
+                    "Invalid date range", "from must be before to", null);
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT);
+        MapSqlParameterSource params = new MapSqlParameterSource("customerId", customerId);
+        if (statuses != null && !statuses.isEmpty()) {
+            sql.append(" AND o.status IN (:statuses)");
+            params.addValue("statuses", statuses.stream().map(Enum::name).toList());
+        }
+        if (from != null) {
+            sql.append(" AND o.created_at >= :from");
+            params.addValue("from", from.atOffset(ZoneOffset.UTC));
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < :to");
+            params.addValue("to", to.atOffset(ZoneOffset.UTC));
+        }
+        sql.append(ORDER_BY);
+
+        RowSink sink = format == ExportFormat.CSV ? new CsvSink(out) : new NdjsonSink(out);
+        try {
+            sink.start();
+            jdbc.query(sql.toString(), params, sink);
+            sink.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("[export] customerId={} format={} orders={} rows={}", customerId, format, sink.orders, sink.rows);
+        return sink.orders;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * Receives the joined rows in order; rows of one order are contiguous.
+     */
+    private abstract static class RowSink implements RowCallbackHandler {
+        long orders;
+        long rows;
+        private Long currentId;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            rows++;
+            long id = rs.getLong("id");
+            try {
+                if (currentId == null || currentId != id) {
+                    if (currentId != null) endOrder();
+                    currentId = id;
+                    orders++;
+                    beginOrder(rs);
+                }
+                row(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void start() throws IOException {
+        }
+
+        void finish() throws IOException {
+            if (currentId != null) endOrder();
+        }
+
+        abstract void beginOrder(ResultSet rs) throws SQLException, IOException;
+
+        abstract void row(ResultSet rs) throws SQLException, IOException;
+
+        abstract void endOrder() throws IOException;
+    }
+
+    /**
+     * One {@link OrderResponse} per line; the current order's items are collected until the next order starts.
+     */
+    private final class NdjsonSink extends RowSink {
+        private final OutputStream out;
+        private final List<OrderResponse.Item> items = new ArrayList<>();
+        private OrderResponse header;
+
+        NdjsonSink(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void beginOrder(ResultSet rs) throws SQLException {
+            items.clear();
+            header = new OrderResponse(rs.getLong("id"), rs.getString("customer_id"), null,
+                    status(rs), rs.getBigDecimal("total"),
+                    instant(rs, "created_at"), instant(rs, "updated_at"));
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException {
+            if (rs.getObject("quantity") == null) return; // order without items
+            items.add(new OrderResponse.Item(rs.getString("sku"), rs.getString("name"), rs.getInt("quantity"),
+                    rs.getBigDecimal("unit_price"), rs.getBigDecimal("line_total")));
+        }
+
+        @Override
+        void endOrder() throws IOException {
+            OrderResponse order = new OrderResponse(header.id(), header.customerId(), List.copyOf(items),
+                    header.status(), header.total(), header.createdAt(), header.updatedAt());
+            out.write(orderWriter.writeValueAsBytes(order));
+            out.write(NEWLINE);
+        }
+
+        @Override
+        void finish() throws IOException {
+            super.finish();
+            out.flush();
+        }
+    }
+
+    /**
+     * One CSV line per joined row, written straight through (RFC 4180 quoting).
+     */
+    private static final class CsvSink extends RowSink {
+        private final Writer out;
+
+        CsvSink(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        void start() throws IOException {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+
+        @Override
+        void beginOrder(ResultSet rs) {
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException, IOException {
+            OrderStatus status = status(rs);
+            Object quantity = rs.getObject("quantity");
+            out.write(String.join(",",
+                    String.valueOf(rs.getLong("id")),
+                    csv(rs.getString("customer_id")),
+                    status == null ? "" : status.name(),
+                    csv(rs.getBigDecimal("total")),
+                    csv(instant(rs, "created_at")),
+                    csv(instant(rs, "updated_at")),
+                    csv(rs.getString("sku")),
+                    csv(rs.getString("name")),
+                    quantity == null ? "" : quantity.toString(),
+                    csv(rs.getBigDecimal("unit_price")),
+                    csv(rs.getBigDecimal("line_total"))));
+            out.write('\n');
+        }
+
+        @Override
+        void endOrder() {
+        }
+
+        @Override
+        void finish() throws IOException {
+            super.finish();
+            out.flush();
+        }
+    }
+
+    private static OrderStatus status(ResultSet rs) throws SQLException {
+        String status = rs.getString("status");
+        return status == null ? null : OrderStatus.valueOf(status);
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String s = value instanceof BigDecimal d ? d.toPlainString() : value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
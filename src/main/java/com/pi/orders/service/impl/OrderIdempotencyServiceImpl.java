@@ -0,0 +1,199 @@
+package com.pi.orders.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pi.orders.domain.IdempotencyKey;
+import com.pi.orders.exception.BadRequestException;
+import com.pi.orders.repo.IdempotencyKeyRepository;
+import com.pi.orders.service.IdempotentCreate;
+import com.pi.orders.service.OrderIdempotencyService;
+import com.pi.orders.service.OrderService;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.OrderResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Idempotent order creation over two tiers.
+ * <p>
+ * A bounded Caffeine cache ({@code orders.idempotency.cache.max-size}, entries expire after
+ * {@code orders.idempotency.ttl}) maps recent keys to the future of their outcome: the first
+ * request for a key runs the create, concurrent duplicates on this node wait for it, later
+ * repeats are answered from memory. Behind it, the {@code idempotency_keys} table is written
+ * in the same transaction as the order, so duplicates on other nodes or after a restart find
+ * the key there; a concurrent insert on another node fails on the primary key, rolls back
+ * its order and replays the winner's. The table keeps the response the first request got, so
+ * a replay returns that response from either tier, not the order's current state (keys
+ * stored before that column existed replay the current order). A key reused with a
+ * different body is rejected with 422.
+ */
+@Service
+@Log4j2
+public class OrderIdempotencyServiceImpl implements OrderIdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository keyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CompletableFuture<Outcome>> recent;
+    private final Counter replayedFromMemory;
+    private final Counter replayedCoalesced;
+    private final Counter replayedFromStore;
+
+    public OrderIdempotencyServiceImpl(OrderService orderService,
+                                       IdempotencyKeyRepository keyRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       ObjectMapper objectMapper,
+                                       MeterRegistry registry,
+                                       @Value("${orders.idempotency.ttl:PT24H}") Duration ttl,
+                                       @Value("${orders.idempotency.cache.max-size:10000}") long maxSize) {
+        if (ttl.isNegative() || ttl.isZero() || maxSize < 1) {
+            throw new IllegalArgumentException("orders.idempotency.ttl and cache.max-size must be positive");
+        }
+        this.orderService = orderService;
+        this.keyRepository = keyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.replayedFromMemory = replayed(registry, "memory");
+        this.replayedCoalesced = replayed(registry, "coalesced");
+        this.replayedFromStore = replayed(registry, "store");
+    }
+
+    @Override
+    public IdempotentCreate createOrder(String idempotencyKey, CreateOrderRequest request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY",
+                    "Invalid Idempotency-Key", "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters", null);
+        }
+        String requestHash = fingerprint(request);
+
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> first = recent.asMap().putIfAbsent(idempotencyKey, mine);
+        if (first != null) {
+            (first.isDone() ? replayedFromMemory : replayedCoalesced).increment();
+            log.info("[createOrder] idempotent replay key={} inFlight={}", idempotencyKey, !first.isDone());
+            return result(requestHash, await(first), true);
+        }
+
+        Outcome outcome;
+        try {
+            Optional<IdempotencyKey> stored = keyRepository.findById(idempotencyKey);
+            outcome = stored.isPresent() ? load(stored.get()) : create(idempotencyKey, requestHash, request);
+        } catch (RuntimeException e) {
+            // nothing was stored: waiters get the same error, the next retry runs again
+            recent.asMap().remove(idempotencyKey, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        mine.complete(outcome);
+        return result(requestHash, outcome, outcome.replayed());
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * Order and key in one transaction; if another node committed the key meanwhile, its order wins.
+     */
+    private Outcome create(String key, String requestHash, CreateOrderRequest request) {
+        try {
+            return transactionTemplate.execute(status -> {
+                OrderResponse order = orderService.createOrder(request);
+                keyRepository.insert(key, requestHash, order.id(), Instant.now().truncatedTo(ChronoUnit.MICROS),
+                        write(order));
+                return new Outcome(requestHash, order, false);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("[createOrder] idempotency key taken concurrently key={}, replaying", key);
+            return load(keyRepository.findById(key).orElseThrow(() -> e));
+        }
+    }
+
+    private Outcome load(IdempotencyKey stored) {
+        replayedFromStore.increment();
+        log.info("[createOrder] idempotent replay key={} orderId={}", stored.getKey(), stored.getOrderId());
+        OrderResponse order = stored.getResponseBody() != null
+                ? read(stored.getResponseBody())
+                : orderService.getOrderDetails(stored.getOrderId());
+        return new Outcome(stored.getRequestHash(), order, true);
+    }
+
+    private String write(OrderResponse order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot serialize order " + order.id(), e);
+        }
+    }
+
+    private OrderResponse read(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot read stored idempotent response", e);
+        }
+    }
+
+    private static IdempotentCreate result(String requestHash, Outcome outcome, boolean replayed) {
+        if (!outcome.requestHash().equals(requestHash)) {
+            throw new BadRequestException(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED",
+                    "Idempotency-Key reused", "Idempotency-Key was already used for a different request", null);
+        }
+        return new IdempotentCreate(outcome.order(), replayed);
+    }
+
+    private static Outcome await(CompletableFuture<Outcome> first) {
+        try {
+            return first.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private String fingerprint(CreateOrderRequest request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("cannot fingerprint request", e);
+        }
+    }
+
+    private static Counter replayed(MeterRegistry registry, String source) {
+        return Counter.builder("orders.idempotency.replayed")
+                .description("Create requests answered with the order of an earlier request with the same Idempotency-Key")
+                .tag("source", source)
+                .register(registry);
+    }
+
+    /**
+     * @param replayed whether this outcome was read back rather than created
+     */
+    private record Outcome(String requestHash, OrderResponse order, boolean replayed) {
+    }
+}
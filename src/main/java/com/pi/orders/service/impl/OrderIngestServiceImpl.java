@@ -0,0 +1,236 @@
+package com.pi.orders.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pi.orders.domain.Order;
+import com.pi.orders.lib.BoundedLineReader;
+import com.pi.orders.lib.OrderProcessingLibrary;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.repo.PendingOrder;
+import com.pi.orders.service.IngestSummary;
+import com.pi.orders.service.OrderIngestService;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.IngestLineResult;
+import com.pi.orders.web.dto.OrderItemRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk ingest for backfills.
+ * <p>
+ * The body is read line by line, no line longer than {@code orders.ingest.max-line-bytes}: a
+ * longer one is skipped to its newline and rejected with {@code LINE_TOO_LONG} without being
+ * buffered. Valid records are buffered only up to {@code orders.ingest.batch-size} and then
+ * written in one transaction (batched inserts).
+ * Results for a batch are written and flushed as soon as it commits, and its entities are
+ * detached before the commit (the persistence context is cleared after the flush), so memory
+ * stays bounded by the batch size and the line limit regardless of the upload size, even when the caller holds
+ * an EntityManager open across batches. Result lines carry the input
+ * line number; rejected lines are reported immediately and may precede the results of
+ * earlier, still-buffered lines. Creation events and customer summary counts are written in the
+ * batch transaction, and the new orders are handed to the promotion scheduler once it commits.
+ */
+@Service
+@Log4j2
+public class OrderIngestServiceImpl implements OrderIngestService {
+
+    private static final byte NEWLINE = '\n';
+
+    private final OrderRepository orderRepository;
+    private final OrderOutbox outbox;
+    private final OrderSummaryProjector summaryProjector;
+    private final OrderPromotionScheduler promotionScheduler;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final int batchSize;
+    private final int maxLineBytes;
+
+    public OrderIngestServiceImpl(OrderRepository orderRepository,
+                                  OrderOutbox outbox,
+                                  OrderSummaryProjector summaryProjector,
+                                  OrderPromotionScheduler promotionScheduler,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper,
+                                  Validator validator,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${orders.ingest.batch-size:500}") int batchSize,
+                                  @Value("${orders.ingest.max-line-bytes:1048576}") int maxLineBytes) {
+        if (batchSize < 1 || maxLineBytes < 1) {
+            throw new IllegalArgumentException("orders.ingest.batch-size and max-line-bytes must be positive");
+        }
+        this.orderRepository = orderRepository;
+        this.outbox = outbox;
+        this.summaryProjector = summaryProjector;
+        this.promotionScheduler = promotionScheduler;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requestReader = objectMapper.readerFor(CreateOrderRequest.class);
+        this.resultWriter = objectMapper.writerFor(IngestLineResult.class);
+        this.batchSize = batchSize;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    @Override
+    public IngestSummary ingest(InputStream ndjson, OutputStream results) throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(ndjson, maxLineBytes);
+        List<PendingLine> batch = new ArrayList<>(batchSize);
+        long lineNo = 0;
+        long created = 0;
+        long rejected = 0;
+
+        BoundedLineReader.Line line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.tooLong()) {
+                write(results, IngestLineResult.failed(lineNo, "LINE_TOO_LONG",
+                        "record of " + line.bytes() + " bytes is over the limit of " + maxLineBytes));
+                rejected++;
+                continue;
+            }
+            if (line.text().isBlank()) continue;
+
+            CreateOrderRequest req;
+            try {
+                req = requestReader.readValue(line.text());
+            } catch (JsonProcessingException e) {
+                write(results, IngestLineResult.failed(lineNo, "MALFORMED_JSON", e.getOriginalMessage()));
+                rejected++;
+                continue;
+            }
+            String violations = validate(req);
+            if (violations != null) {
+                write(results, IngestLineResult.failed(lineNo, "VALIDATION_FAILED", violations));
+                rejected++;
+                continue;
+            }
+
+            batch.add(new PendingLine(lineNo, req));
+            if (batch.size() >= batchSize) {
+                long written = writeBatch(batch, results);
+                created += written;
+                rejected += batch.size() - written;
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            long written = writeBatch(batch, results);
+            created += written;
+            rejected += batch.size() - written;
+        }
+        results.flush();
+
+        IngestSummary summary = new IngestSummary(lineNo, created, rejected);
+        log.info("[ingest] lines={} created={} rejected={}", summary.lines(), summary.created(), summary.rejected());
+        return summary;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * Persist one batch in a single transaction. If the batch fails, fall back to one
+     * transaction per record so a single bad row does not reject its neighbours.
+     *
+     * @return number of orders created
+     */
+    private long writeBatch(List<PendingLine> batch, OutputStream results) throws IOException {
+        List<Order> saved;
+        try {
+            saved = transactionTemplate.execute(tx -> {
+                List<Order> orders = orderRepository.saveAll(batch.stream().map(p -> OrderProcessingLibrary.toOrder(p.request())).toList());
+                orderRepository.flush();
+                List<Long> ids = orders.stream().map(Order::getId).toList();
+                outbox.recordCreated(ids);
+                summaryProjector.recordCreated(ids);
+                promotionScheduler.scheduleAll(orders.stream().map(o -> new PendingOrder(o.getId(), o.getCreatedAt())).toList());
+                // everything is flushed; only the ids are needed from here on
+                entityManager.clear();
+                return orders;
+            });
+        } catch (Exception e) {
+            log.warn("[ingest] batch of {} failed, retrying per record cause={}", batch.size(), e.toString());
+            return writeOneByOne(batch, results);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            write(results, IngestLineResult.created(batch.get(i).line(), saved.get(i).getId()));
+        }
+        results.flush();
+        return batch.size();
+    }
+
+    private long writeOneByOne(List<PendingLine> batch, OutputStream results) throws IOException {
+        long created = 0;
+        for (PendingLine p : batch) {
+            try {
+                Order order = transactionTemplate.execute(tx -> {
+                    Order o = orderRepository.save(OrderProcessingLibrary.toOrder(p.request()));
+                    outbox.recordCreated(o);
+                    orderRepository.flush();
+                    summaryProjector.recordCreated(List.of(o.getId()));
+                    promotionScheduler.schedule(o.getId(), o.getCreatedAt());
+                    entityManager.clear();
+                    return o;
+                });
+                write(results, IngestLineResult.created(p.line(), order.getId()));
+                created++;
+            } catch (Exception e) {
+                log.error("[ingest] failed line={} customerId={} cause={}", p.line(), p.request().customerId(), e.toString(), e);
+                write(results, IngestLineResult.failed(p.line(), "ERROR_CREATE_ORDER", "Error while creating order"));
+            }
+        }
+        results.flush();
+        return created;
+    }
+
+    /**
+     * Bean-validate the record and each of its items; returns null when valid.
+     */
+    private String validate(CreateOrderRequest req) {
+        if (req == null) return "record: must not be null";
+        if (req.items() == null) return "items: must not be null";
+        List<String> messages = new ArrayList<>(describe(validator.validate(req), ""));
+        for (int i = 0; i < req.items().size(); i++) {
+            OrderItemRequest item = req.items().get(i);
+            if (item == null) {
+                messages.add("items[" + i + "]: must not be null");
+            } else {
+                messages.addAll(describe(validator.validate(item), "items[" + i + "]."));
+            }
+        }
+        return messages.isEmpty() ? null : String.join("; ", messages);
+    }
+
+    private static <T> List<String> describe(Set<ConstraintViolation<T>> violations, String prefix) {
+        return violations.stream()
+                .map(v -> prefix + v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void write(OutputStream out, IngestLineResult result) throws IOException {
+        out.write(resultWriter.writeValueAsBytes(result));
+        out.write(NEWLINE);
+    }
+
+    private record PendingLine(long line, CreateOrderRequest request) {
+    }
+}
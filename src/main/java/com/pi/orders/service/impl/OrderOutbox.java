@@ -0,0 +1,55 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.domain.Order;
+import com.pi.orders.domain.OrderEvent;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Writes order status-change events into the outbox table.
+ * <p>
+ * Every method joins the caller's transaction and refuses to run without one, so an
+ * event exists exactly when the change it describes committed.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OrderOutbox {
+
+    private final OrderEventRepository eventRepository;
+
+    /**
+     * Creation event (null -> PENDING) for one saved order.
+     */
+    public void recordCreated(Order order) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(order.getId());
+        event.setCustomerId(order.getCustomerId());
+        event.setToStatus(order.getStatus());
+        event.setOccurredAt(order.getCreatedAt());
+        eventRepository.save(event);
+    }
+
+    /**
+     * Creation events for orders saved in bulk; one INSERT ... SELECT for the whole set.
+     */
+    public int recordCreated(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return 0;
+        return eventRepository.insertCreated(orderIds);
+    }
+
+    /**
+     * Events for one transition of the given orders, as reported changed by its UPDATE;
+     * one INSERT ... SELECT for the whole set.
+     */
+    public int recordStatusChanges(OrderStatus from, OrderStatus to, Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return 0;
+        return eventRepository.insertStatusChanges(from.name(), to.name(), orderIds);
+    }
+}
@@ -0,0 +1,122 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.PromotionResult;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set-based status promotion.
+ * <p>
+ * Walks the matching orders by primary key in batches of {@code orders.jobs.promote.chunk-size}.
+ * Every batch runs in its own short transaction: read the next ids after the last seen id,
+ * then issue one bulk UPDATE bounded by the first and last id of that batch. No entities are
+ * loaded, so heap use and lock duration stay flat regardless of how many orders are waiting.
+ * The UPDATE reports the ids it changed; the outbox events and the customer summary deltas
+ * for exactly those orders are written set-based in the same transaction.
+ */
+@Component
+@Log4j2
+public class OrderPromotionEngine {
+
+    private final OrderRepository orderRepository;
+    private final OrderCacheInvalidator cacheInvalidator;
+    private final OrderOutbox outbox;
+    private final OrderSummaryProjector summaryProjector;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OrderPromotionEngine(OrderRepository orderRepository,
+                                OrderCacheInvalidator cacheInvalidator,
+                                OrderOutbox outbox,
+                                OrderSummaryProjector summaryProjector,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${orders.jobs.promote.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("orders.jobs.promote.chunk-size must be positive");
+        }
+        this.orderRepository = orderRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.outbox = outbox;
+        this.summaryProjector = summaryProjector;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Promote every order currently in {@code from} and created at or before {@code createdBefore} to {@code to}.
+     * Returns the total count and the timing of each chunk.
+     */
+    public PromotionResult promote(OrderStatus from, OrderStatus to, Instant createdBefore) {
+        List<PromotionResult.Chunk> chunks = new ArrayList<>();
+        int promoted = 0;
+        long afterId = 0L;
+        while (true) {
+            long cursor = afterId;
+            long started = System.nanoTime();
+            PromotionResult.Chunk chunk = transactionTemplate.execute(tx -> promoteChunk(from, to, createdBefore, cursor));
+            if (chunk == null) {
+                break;
+            }
+            chunk = chunk.withElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.debug("[promote] chunk ids={}..{} promoted={} elapsedMs={}",
+                    chunk.firstId(), chunk.lastId(), chunk.promoted(), chunk.elapsedMillis());
+            chunks.add(chunk);
+            promoted += chunk.promoted();
+            afterId = chunk.lastId();
+        }
+        return new PromotionResult(promoted, chunks);
+    }
+
+    /**
+     * Promote the given orders that are still in {@code from}, in one transaction.
+     *
+     * @return number of orders promoted
+     */
+    public int promoteIds(OrderStatus from, OrderStatus to, Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        Integer updated = transactionTemplate.execute(tx -> {
+            List<Long> changed = orderRepository.updateStatusForIds(from, to, ids, Instant.now());
+            if (!changed.isEmpty()) {
+                outbox.recordStatusChanges(from, to, changed);
+                summaryProjector.recordTransition(from, to, changed);
+                cacheInvalidator.evictAll(changed);
+            }
+            return changed.size();
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * One keyset step; returns null when there is nothing left after {@code afterId}.
+     */
+    private PromotionResult.Chunk promoteChunk(OrderStatus from, OrderStatus to, Instant createdBefore, long afterId) {
+        List<Long> ids = orderRepository.findIdsByStatusAfter(from, afterId, createdBefore, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        long firstId = ids.get(0);
+        long lastId = ids.get(ids.size() - 1);
+        // the rows actually changed: the range can also hold a row committed after the id read
+        List<Long> changed = orderRepository.updateStatusInRange(from, to, firstId, lastId, createdBefore, Instant.now());
+        if (!changed.isEmpty()) {
+            outbox.recordStatusChanges(from, to, changed);
+            summaryProjector.recordTransition(from, to, changed);
+            cacheInvalidator.evictAll(changed);
+        }
+        return new PromotionResult.Chunk(firstId, lastId, changed.size(), 0L);
+    }
+}
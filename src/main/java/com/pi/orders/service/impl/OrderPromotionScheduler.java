@@ -0,0 +1,224 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.repo.PendingOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process delayed promotion: each new order is promoted PENDING -> PROCESSING once
+ * {@code orders.jobs.promote.hold} has passed since its creation, instead of waiting for the
+ * next poll.
+ * <p>
+ * Orders are registered after their creating transaction commits and kept in a
+ * {@link DelayQueue} (at most {@code scheduler.capacity} entries). A single worker thread
+ * waits for the earliest due order, takes every other order that is due by then (up to
+ * {@code scheduler.max-batch}) and promotes them with one UPDATE. On start the queue is
+ * rebuilt from the PENDING orders in the database. Orders that are not tracked (queue full,
+ * other node, failed batch) are still promoted by {@code PendingPromotionJob}, which only
+ * takes orders past the same hold period.
+ */
+@Component
+@Log4j2
+public class OrderPromotionScheduler implements SmartLifecycle {
+
+    private final OrderPromotionEngine promotionEngine;
+    private final OrderRepository orderRepository;
+    private final Duration hold;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final int capacity;
+    private final DelayQueue<Due> queue = new DelayQueue<>();
+    private final Counter promoted;
+    private final Counter dropped;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OrderPromotionScheduler(OrderPromotionEngine promotionEngine,
+                                   OrderRepository orderRepository,
+                                   MeterRegistry registry,
+                                   @Value("${orders.jobs.promote.hold:PT1M}") Duration hold,
+                                   @Value("${orders.jobs.promote.scheduler.enabled:true}") boolean enabled,
+                                   @Value("${orders.jobs.promote.scheduler.max-batch:500}") int maxBatch,
+                                   @Value("${orders.jobs.promote.scheduler.capacity:100000}") int capacity) {
+        if (hold.isNegative() || maxBatch < 1 || capacity < 1) {
+            throw new IllegalArgumentException("orders.jobs.promote.hold must not be negative; scheduler.max-batch and capacity must be positive");
+        }
+        this.promotionEngine = promotionEngine;
+        this.orderRepository = orderRepository;
+        this.hold = hold;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.capacity = capacity;
+        this.promoted = Counter.builder("orders.jobs.promote.scheduled.promoted")
+                .description("Orders promoted by the delay-queue scheduler")
+                .register(registry);
+        this.dropped = Counter.builder("orders.jobs.promote.scheduled.dropped")
+                .description("Orders not tracked because the schedule was full (left to the poller)")
+                .register(registry);
+        this.lag = Timer.builder("orders.jobs.promote.scheduled.lag")
+                .description("Time between an order becoming due and its promotion batch starting")
+                .register(registry);
+        Gauge.builder("orders.jobs.promote.scheduled.tracked", queue, DelayQueue::size)
+                .description("Orders waiting in the promotion schedule")
+                .register(registry);
+    }
+
+    /**
+     * Latest creation time of orders that are due now; the poller's cutoff.
+     */
+    public Instant dueCutoff() {
+        return Instant.now().minus(hold);
+    }
+
+    /**
+     * Track one order for promotion at {@code createdAt + hold}.
+     */
+    public void schedule(long orderId, Instant createdAt) {
+        scheduleAll(List.of(new PendingOrder(orderId, createdAt)));
+    }
+
+    /**
+     * Track orders for promotion. Inside a transaction they are added after commit, so the
+     * worker never sees an order whose row is not visible yet; a rollback adds nothing.
+     */
+    public void scheduleAll(Collection<PendingOrder> orders) {
+        if (!enabled || orders.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    orders.forEach(o -> offer(o));
+                }
+            });
+        } else {
+            orders.forEach(this::offer);
+        }
+    }
+
+    /* -------------------- lifecycle -------------------- */
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("[promoteScheduler] disabled; promotion is left to the poller");
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("order-promotion-scheduler").daemon(true).start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queue.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void run() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("[promoteScheduler] rebuild failed, pending orders are left to the poller cause={}", e.toString());
+        }
+        List<Due> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - 1);
+                promote(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("[promoteScheduler] batch of {} failed, left to the poller cause={}", batch.size(), e.toString());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void promote(List<Due> batch) {
+        long now = System.nanoTime();
+        batch.forEach(d -> lag.record(Math.max(0, now - d.dueAtNanos()), TimeUnit.NANOSECONDS));
+        List<Long> ids = batch.stream().map(Due::orderId).distinct().sorted().toList();
+        int count = promotionEngine.promoteIds(OrderStatus.PENDING, OrderStatus.PROCESSING, ids);
+        promoted.increment(count);
+        log.debug("[promoteScheduler] batch due={} promoted={}", ids.size(), count);
+    }
+
+    /**
+     * Re-register the PENDING orders found in the database, oldest first, up to the capacity.
+     */
+    private void rebuild() {
+        long afterId = 0L;
+        int tracked = 0;
+        while (running && tracked < capacity) {
+            List<PendingOrder> page = orderRepository.findPendingAfter(OrderStatus.PENDING, afterId,
+                    PageRequest.of(0, Math.min(maxBatch, capacity - tracked)));
+            if (page.isEmpty()) break;
+            page.forEach(this::offer);
+            tracked += page.size();
+            afterId = page.get(page.size() - 1).id();
+        }
+        log.info("[promoteScheduler] rebuilt schedule from database tracked={}", tracked);
+    }
+
+    private void offer(PendingOrder order) {
+        if (queue.size() >= capacity) {
+            dropped.increment();
+            return;
+        }
+        long delayNanos = Math.max(0L, Duration.between(Instant.now(), order.createdAt().plus(hold)).toNanos());
+        queue.offer(new Due(order.id(), System.nanoTime() + delayNanos));
+    }
+
+    private record Due(long orderId, long dueAtNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtNanos, ((Due) other).dueAtNanos);
+        }
+    }
+}
@@ -1,26 +1,36 @@
 package com.pi.orders.service.impl;
 
+import com.pi.orders.configuration.CacheConfig;
+import com.pi.orders.configuration.ReadWriteDataSourceConfig;
 import com.pi.orders.domain.Order;
-import com.pi.orders.domain.OrderItem;
 import com.pi.orders.domain.OrderStatus;
 import com.pi.orders.exception.BadRequestException;
 import com.pi.orders.exception.GenericException;
 import com.pi.orders.exception.NotFoundException;
+import com.pi.orders.lib.OrderCursor;
 import com.pi.orders.lib.OrderProcessingLibrary;
 import com.pi.orders.repo.OrderRepository;
 import com.pi.orders.service.OrderService;
+import com.pi.orders.service.PromotionResult;
 import com.pi.orders.web.dto.CreateOrderRequest;
-import com.pi.orders.web.dto.OrderItemRequest;
+import com.pi.orders.web.dto.CursorPage;
 import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @Log4j2
@@ -28,10 +38,18 @@ import java.util.List;
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderPromotionEngine promotionEngine;
+    private final OrderCacheInvalidator cacheInvalidator;
+    private final OrderOutbox outbox;
+    private final OrderSummaryProjector summaryProjector;
+    private final OrderPromotionScheduler promotionScheduler;
+    private final CacheManager cacheManager;
 
     /**
      * Create a new order for the given request.
      * - Logs start/end with customerId & generated orderId.
+     * - Records the creation event in the outbox and counts the order in the customer summary, same transaction.
+     * - Schedules its promotion once the hold period has passed (after commit).
      * - Wraps unexpected errors as 500.
      */
     @Override
@@ -39,15 +57,11 @@ public class OrderServiceImpl implements OrderService {
     public OrderResponse createOrder(CreateOrderRequest req) {
         log.info("[createOrder] customerId={} items={}", req.customerId(), req.items().size());
         try {
-            Order order = new Order();
-            order.setCustomerId(req.customerId());
-
-            List<OrderItem> items = req.items().stream().map(this::toItem).toList();
-            Order finalOrder = order;
-            items.forEach(i -> i.setOrder(finalOrder));
-            order.setItems(items);
-
-            order = orderRepository.save(order);
+            Order order = orderRepository.save(OrderProcessingLibrary.toOrder(req));
+            outbox.recordCreated(order);
+            orderRepository.flush();
+            summaryProjector.recordCreated(List.of(order.getId()));
+            promotionScheduler.schedule(order.getId(), order.getCreatedAt());
             log.info("[createOrder] success orderId={} customerId={}", order.getId(), req.customerId());
             return OrderProcessingLibrary.toResponse(order);
         } catch (Exception e) {
@@ -61,18 +75,23 @@ public class OrderServiceImpl implements OrderService {
      * Fetch order details by id.
      * - Returns 404 when not found (NotFoundException).
      * - Uses readOnly transaction for performance.
+     * - Read-through cached by id; hits skip the transaction entirely (see {@link CacheConfig}).
+     * - A miss reads from the primary, never a lagging replica: the result stays cached until the
+     *   order changes again or the entry expires.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.ORDERS_CACHE, key = "#p0", sync = true)
     @Transactional(readOnly = true)
     public OrderResponse getOrderDetails(Long orderId) {
         log.info("[getOrderDetails] orderId={}", orderId);
         try {
-            Order order = orderRepository.findById(orderId)
-                    .orElseThrow(() -> new NotFoundException(HttpStatus.NOT_FOUND, "ORDER_NOT_FOUND",
-                            "Order " + orderId + " not found", "Order " + orderId + " not found", null));
+            OrderResponse response = ReadWriteDataSourceConfig.readFromPrimary(() -> OrderProcessingLibrary.toResponse(
+                    orderRepository.findById(orderId)
+                            .orElseThrow(() -> new NotFoundException(HttpStatus.NOT_FOUND, "ORDER_NOT_FOUND",
+                                    "Order " + orderId + " not found", "Order " + orderId + " not found", null))));
 
-            log.info("[getOrderDetails] success orderId={} status={}", orderId, order.getStatus());
-            return OrderProcessingLibrary.toResponse(order);
+            log.info("[getOrderDetails] success orderId={} status={}", orderId, response.status());
+            return response;
         } catch (NotFoundException e) {
             log.warn("[getOrderDetails] not-found orderId={}", orderId);
             throw e; // keep 404
@@ -83,6 +102,34 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Last modification time of an order, the basis of its ETag.
+     * - Taken from the cached response when there is one; otherwise one single-column query by id.
+     * - Returns 404 when not found (NotFoundException).
+     * - readOnly like the other reads, so the lookup uses the read pool; a cache hit takes no connection.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Instant getOrderLastModified(Long orderId) {
+        Cache cache = cacheManager.getCache(CacheConfig.ORDERS_CACHE);
+        OrderResponse cached = cache == null ? null : cache.get(orderId, OrderResponse.class);
+        if (cached != null) {
+            return cached.updatedAt();
+        }
+        try {
+            return orderRepository.findUpdatedAtById(orderId)
+                    .orElseThrow(() -> new NotFoundException(HttpStatus.NOT_FOUND, "ORDER_NOT_FOUND",
+                            "Order " + orderId + " not found", "Order " + orderId + " not found", null));
+        } catch (NotFoundException e) {
+            log.warn("[getOrderLastModified] not-found orderId={}", orderId);
+            throw e;
+        } catch (Exception e) {
+            log.error("[getOrderLastModified] failed orderId={} cause={}", orderId, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_GET_ORDER",
+                    "Error fetching order details", "Exception", e);
+        }
+    }
+
     /**
      * List orders for a customer, optionally filtering by statuses.
      * - If statuses is null/empty, fetch by customer only.
@@ -108,20 +155,154 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * Promote all PENDING orders to PROCESSING.
-     * - Intended for a scheduled job; minimal logging.
-     * - Uses saveAll for batch persistence.
+     * Cursor (keyset) listing for a customer, newest first.
+     * - Fetches size + 1 rows to decide hasNext; never runs a count query.
+     * - Cost is independent of how deep the client has paged.
+     * - 400 on a malformed cursor or non-positive size.
      */
     @Override
-    @Transactional
-    public int updateOrders() {
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> listOrders(String customerId, List<OrderStatus> statuses, String cursor, int size) {
+        log.info("[listOrders] customerId={} statuses={} cursor={} size={}", customerId, statuses, cursor, size);
+        if (size < 1) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_PAGE_SIZE",
+                    "Page size must be positive", "size must be >= 1", null);
+        }
+        try {
+            Pageable probe = PageRequest.of(0, size + 1);
+            List<Order> rows = (cursor == null || cursor.isBlank())
+                    ? orderRepository.findFirstKeysetPage(customerId, statuses, probe)
+                    : findAfter(customerId, statuses, OrderCursor.decode(cursor), probe);
+
+            CursorPage<OrderResponse> page = cursorPage(rows, size,
+                    o -> new OrderCursor(o.getCreatedAt(), o.getId()), OrderProcessingLibrary::toResponse);
+            log.info("[listOrders] result customerId={} returned={} hasNext={}", customerId, page.content().size(), page.hasNext());
+            return page;
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("[listOrders] failed customerId={} cause={}", customerId, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_LIST_ORDERS",
+                    "Error while listing orders", "Exception", e);
+        }
+    }
+
+    /**
+     * Summary view of the offset listing.
+     * - One projection query (plus the count when needed); order_items is never read.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryResponse> listOrderSummaries(String customerId, List<OrderStatus> statuses, Pageable pageable) {
+        log.info("[listOrderSummaries] customerId={} statuses={} page={} size={}",
+                customerId, statuses, pageable.getPageNumber(), pageable.getPageSize());
+        try {
+            Page<OrderSummaryResponse> page = orderRepository.findSummariesByCustomerId(customerId, statuses, pageable);
+            log.info("[listOrderSummaries] result customerId={} totalElements={} totalPages={}",
+                    customerId, page.getTotalElements(), page.getTotalPages());
+            return page;
+        } catch (Exception e) {
+            log.error("[listOrderSummaries] failed customerId={} cause={}", customerId, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_LIST_ORDERS",
+                    "Error while listing orders", "Exception", e);
+        }
+    }
+
+    /**
+     * Summary view of the cursor listing: one projection query per page, same cursor format.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryResponse> listOrderSummaries(String customerId, List<OrderStatus> statuses, String cursor, int size) {
+        log.info("[listOrderSummaries] customerId={} statuses={} cursor={} size={}", customerId, statuses, cursor, size);
+        if (size < 1) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_PAGE_SIZE",
+                    "Page size must be positive", "size must be >= 1", null);
+        }
         try {
-            List<Order> pending = orderRepository.findByStatus(OrderStatus.PENDING);
-            pending.forEach(o -> o.setStatus(OrderStatus.PROCESSING));
-            orderRepository.saveAll(pending);
-            int count = pending.size();
-            log.info("[updateOrders] promoted PENDING->PROCESSING count={}", count);
-            return count;
+            Pageable probe = PageRequest.of(0, size + 1);
+            List<OrderSummaryResponse> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = orderRepository.findFirstSummaryKeysetPage(customerId, statuses, probe);
+            } else {
+                OrderCursor after = OrderCursor.decode(cursor);
+                rows = orderRepository.findSummaryKeysetPageAfter(customerId, statuses, after.createdAt(), after.id(), probe);
+            }
+
+            CursorPage<OrderSummaryResponse> page = cursorPage(rows, size,
+                    o -> new OrderCursor(o.createdAt(), o.id()), o -> o);
+            log.info("[listOrderSummaries] result customerId={} returned={} hasNext={}", customerId, page.content().size(), page.hasNext());
+            return page;
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("[listOrderSummaries] failed customerId={} cause={}", customerId, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_LIST_ORDERS",
+                    "Error while listing orders", "Exception", e);
+        }
+    }
+
+    /**
+     * Orders containing a SKU (recalls, stock issues).
+     * - One semi-join projection per page: order ids come from the (sku, order_id) index,
+     *   headers from the orders by primary key; items and entities are never loaded.
+     * - 400 on a blank SKU, a non-positive size or an empty date range.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryResponse> findOrdersBySku(String sku, List<OrderStatus> statuses, Instant from, Instant to,
+                                                            String cursor, int size) {
+        log.info("[findOrdersBySku] sku={} statuses={} from={} to={} cursor={} size={}", sku, statuses, from, to, cursor, size);
+        if (sku == null || sku.isBlank()) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_SKU",
+                    "SKU must not be blank", "sku is required", null);
+        }
+        if (size < 1) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_PAGE_SIZE",
+                    "Page size must be positive", "size must be >= 1", null);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException(HttpStatus.BAD_REQUEST, "INVALID_DATE_RANGE",
+                    "Invalid date range", "from must be before to", null);
+        }
+        try {
+            Pageable probe = PageRequest.of(0, size + 1);
+            List<OrderSummaryResponse> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = orderRepository.findFirstSummaryPageBySku(sku, statuses, from, to, probe);
+            } else {
+                OrderCursor after = OrderCursor.decode(cursor);
+                rows = orderRepository.findSummaryPageBySkuAfter(sku, statuses, from, to, after.createdAt(), after.id(), probe);
+            }
+
+            CursorPage<OrderSummaryResponse> page = cursorPage(rows, size,
+                    o -> new OrderCursor(o.createdAt(), o.id()), o -> o);
+            log.info("[findOrdersBySku] result sku={} returned={} hasNext={}", sku, page.content().size(), page.hasNext());
+            return page;
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("[findOrdersBySku] failed sku={} cause={}", sku, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_FIND_ORDERS_BY_SKU",
+                    "Error while finding orders by SKU", "Exception", e);
+        }
+    }
+
+    /**
+     * Promote all PENDING orders past the hold period to PROCESSING.
+     * - Safety net for {@link OrderPromotionScheduler}, which promotes each order when it comes due;
+     *   intended for a scheduled job; minimal logging.
+     * - Chunked bulk UPDATEs, one short transaction per chunk (see {@link OrderPromotionEngine}),
+     *   so no transaction is opened here.
+     */
+    @Override
+    public PromotionResult updateOrders() {
+        try {
+            PromotionResult result = promotionEngine.promote(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                    promotionScheduler.dueCutoff());
+            log.info("[updateOrders] promoted PENDING->PROCESSING count={} chunks={} elapsedMs={}",
+                    result.promoted(), result.chunks().size(), result.elapsedMillis());
+            return result;
         } catch (Exception e) {
             log.error("[updateOrders] failed cause={}", e.toString(), e);
             throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_PROMOTE_ORDERS",
@@ -131,27 +312,34 @@ public class OrderServiceImpl implements OrderService {
 
     /**
      * Cancel an order:
-     * - Only allowed when status = PENDING, otherwise 400.
-     * - 404 if order not found.
+     * - One conditional UPDATE (id = ? AND status = PENDING) decides; no read-modify-write,
+     *   so a concurrent promotion can never be overwritten.
+     * - 0 rows affected: 404 if order not found, otherwise 400 (no longer PENDING).
+     * - Records the PENDING -> CANCELED event in the outbox and moves the order in the customer
+     *   summary, same transaction.
      */
     @Override
     @Transactional
     public OrderResponse cancelOrder(Long orderId) {
         log.info("[cancelOrder] orderId={}", orderId);
         try {
-            Order order = orderRepository.findById(orderId)
-                    .orElseThrow(() -> new NotFoundException(HttpStatus.NOT_FOUND, "ORDER_NOT_FOUND",
-                            "Order " + orderId + " not found", "Order " + orderId + " not found", null));
-
-            if (order.getStatus() != OrderStatus.PENDING) {
-                log.warn("[cancelOrder] not-pending orderId={} currentStatus={}", orderId, order.getStatus());
+            int updated = orderRepository.updateStatusIfCurrent(orderId, OrderStatus.PENDING, OrderStatus.CANCELED, Instant.now());
+            if (updated == 0) {
+                if (!orderRepository.existsById(orderId)) {
+                    throw new NotFoundException(HttpStatus.NOT_FOUND, "ORDER_NOT_FOUND",
+                            "Order " + orderId + " not found", "Order " + orderId + " not found", null);
+                }
+                log.warn("[cancelOrder] not-pending orderId={}", orderId);
                 throw new BadRequestException(HttpStatus.BAD_REQUEST, "ORDER_NOT_PENDING",
                         "Cannot cancel order unless it is in PENDING", "BusinessRule", null);
             }
+            // the row is ours (locked) until commit, so it is found by id and its new status
+            outbox.recordStatusChanges(OrderStatus.PENDING, OrderStatus.CANCELED, List.of(orderId));
+            summaryProjector.recordTransition(OrderStatus.PENDING, OrderStatus.CANCELED, List.of(orderId));
+            cacheInvalidator.evict(orderId);
 
-            order.setStatus(OrderStatus.CANCELED);
-            orderRepository.save(order);
-
+            // response body only; the row was not in the persistence context, so this reads the update
+            Order order = orderRepository.findById(orderId).orElseThrow();
             log.info("[cancelOrder] success orderId={} status={}", orderId, order.getStatus());
             return OrderProcessingLibrary.toResponse(order);
         } catch (NotFoundException e) {
@@ -169,15 +357,17 @@ public class OrderServiceImpl implements OrderService {
     /* -------------------- helpers -------------------- */
 
     /**
-     * Map an incoming DTO item to entity (without order back-reference).
-     * The caller sets the Order relationship.
+     * Trim a size + 1 probe to the page and derive the next cursor from its last row.
      */
-    private OrderItem toItem(OrderItemRequest r) {
-        OrderItem i = new OrderItem();
-        i.setSku(r.sku());
-        i.setName(r.name());
-        i.setQuantity(r.quantity());
-        i.setUnitPrice(r.unitPrice());
-        return i;
+    private static <R, T> CursorPage<T> cursorPage(List<R> rows, int size,
+                                                   Function<R, OrderCursor> position, Function<R, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<R> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? position.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), size, hasNext, nextCursor);
+    }
+
+    private List<Order> findAfter(String customerId, List<OrderStatus> statuses, OrderCursor after, Pageable probe) {
+        return orderRepository.findKeysetPageAfter(customerId, statuses, after.createdAt(), after.id(), probe);
     }
 }
@@ -0,0 +1,167 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.domain.OrderStatus;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+
+/**
+ * Keeps the per-customer summary read model in step with order changes.
+ * <p>
+ * Like {@link OrderOutbox}, every method joins the caller's transaction (and refuses to run
+ * without one) and applies its change with one set-based statement, so the summary commits
+ * or rolls back together with the orders it describes.
+ * <p>
+ * The first change for a (customer, status) inserts its row. Two transactions doing that at
+ * once both take the INSERT branch of the MERGE, and the later one fails on the primary key
+ * (PostgreSQL, once the first commits) or with a concurrent-update error (H2, at once). The
+ * statement therefore runs behind a savepoint and is retried a few times, after a short pause,
+ * until it finds the committed row and updates it. It runs through JDBC on the transaction's
+ * connection: a failed Hibernate query would mark the whole transaction rollback-only.
+ */
+@Component
+@Log4j2
+@Transactional(propagation = Propagation.MANDATORY)
+public class OrderSummaryProjector {
+
+    static final int MAX_ATTEMPTS = 5;
+    private static final long FIRST_BACKOFF_MILLIS = 10;
+
+    /**
+     * Add just-inserted orders to their customer's current-status rows, grouped per customer.
+     */
+    private static final String ADD_CREATED = """
+            MERGE INTO customer_status_summary s
+            USING (SELECT o.customer_id, o.status, COUNT(*) AS n, COALESCE(SUM(o.total), 0) AS v,
+                          MAX(o.created_at) AS last_at
+                   FROM orders o
+                   WHERE o.id IN (:orderIds)
+                   GROUP BY o.customer_id, o.status) d
+            ON s.customer_id = d.customer_id AND s.status = d.status
+            WHEN MATCHED THEN UPDATE SET order_count = s.order_count + d.n,
+                                         order_value = s.order_value + d.v,
+                                         last_created_at = GREATEST(s.last_created_at, d.last_at)
+            WHEN NOT MATCHED THEN INSERT (customer_id, status, order_count, order_value, last_created_at)
+                                  VALUES (d.customer_id, d.status, d.n, d.v, d.last_at)""";
+
+    /**
+     * One -1 delta on the {@code from} row and one +1 delta on the {@code to} row per changed
+     * order, summed per customer. The changed rows are the ids the UPDATE reported, which this
+     * transaction holds locked in {@code to}.
+     */
+    private static final String APPLY_TRANSITION = """
+            MERGE INTO customer_status_summary s
+            USING (SELECT x.customer_id, x.status, SUM(x.n) AS n, COALESCE(SUM(x.v), 0) AS v,
+                          MAX(x.last_at) AS last_at
+                   FROM (SELECT o.customer_id, o.status, 1 AS n, o.total AS v, o.created_at AS last_at
+                         FROM orders o
+                         WHERE o.id IN (:orderIds) AND o.status = :to
+                         UNION ALL
+                         SELECT o.customer_id, CAST(:from AS VARCHAR(32)), -1, -o.total, NULL
+                         FROM orders o
+                         WHERE o.id IN (:orderIds) AND o.status = :to) x
+                   GROUP BY x.customer_id, x.status) d
+            ON s.customer_id = d.customer_id AND s.status = d.status
+            WHEN MATCHED THEN UPDATE SET order_count = s.order_count + d.n,
+                                         order_value = s.order_value + d.v,
+                                         last_created_at = GREATEST(s.last_created_at, d.last_at)
+            WHEN NOT MATCHED THEN INSERT (customer_id, status, order_count, order_value, last_created_at)
+                                  VALUES (d.customer_id, d.status, d.n, d.v, d.last_at)""";
+
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public OrderSummaryProjector(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Count newly created orders; their rows must already be flushed.
+     */
+    public void recordCreated(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return;
+        merge(ADD_CREATED, new MapSqlParameterSource("orderIds", orderIds));
+    }
+
+    /**
+     * Move orders just changed from {@code from} to {@code to}; {@code orderIds} must be the ids
+     * that UPDATE reported changed.
+     */
+    public void recordTransition(OrderStatus from, OrderStatus to, Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return;
+        merge(APPLY_TRANSITION, new MapSqlParameterSource()
+                .addValue("from", from.name())
+                .addValue("to", to.name())
+                .addValue("orderIds", orderIds));
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void merge(String sql, MapSqlParameterSource params) {
+        // the caller's transaction connection, shared with Hibernate
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = savepoint(connection);
+            try {
+                jdbc.update(sql, params);
+                release(connection, savepoint);
+                return;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                rollbackTo(connection, savepoint);
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("[summary] concurrent first row for a (customer, status), retrying attempt={} cause={}",
+                        attempt, e.getMostSpecificCause().getMessage());
+                pause(FIRST_BACKOFF_MILLIS << (attempt - 1));
+            }
+        }
+    }
+
+    private static Savepoint savepoint(Connection connection) {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot set a savepoint for the summary update", e);
+        }
+    }
+
+    private static void release(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // not supported everywhere; the savepoint ends with the transaction anyway
+            log.debug("[summary] savepoint not released cause={}", e.toString());
+        }
+    }
+
+    private static void rollbackTo(Connection connection, Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot roll back the summary update to its savepoint", e);
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyFailureException("Interrupted while retrying the summary update", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.pi.orders.service.impl;
+
+import com.pi.orders.domain.CustomerStatusSummary;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.exception.GenericException;
+import com.pi.orders.repo.CustomerStatusSummaryRepository;
+import com.pi.orders.service.OrderSummaryService;
+import com.pi.orders.web.dto.CustomerOrderSummary;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+@Service
+@Log4j2
+public class OrderSummaryServiceImpl implements OrderSummaryService {
+
+    private final CustomerStatusSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildBatchSize;
+
+    public OrderSummaryServiceImpl(CustomerStatusSummaryRepository summaryRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${orders.summary.rebuild.batch-size:100}") int rebuildBatchSize) {
+        if (rebuildBatchSize < 1) {
+            throw new IllegalArgumentException("orders.summary.rebuild.batch-size must be positive");
+        }
+        this.summaryRepository = summaryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    /**
+     * Read the customer's summary rows (at most one per status, by primary key).
+     * - A customer without orders gets zero counts.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerOrderSummary getSummary(String customerId) {
+        log.info("[getSummary] customerId={}", customerId);
+        try {
+            return toSummary(customerId, summaryRepository.findByCustomerId(customerId));
+        } catch (Exception e) {
+            log.error("[getSummary] failed customerId={} cause={}", customerId, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_GET_SUMMARY",
+                    "Error reading customer summary", "Exception", e);
+        }
+    }
+
+    /**
+     * Replace the customer's summary rows with figures recomputed from their orders, in one transaction.
+     */
+    @Override
+    @Transactional
+    public CustomerOrderSummary rebuild(String customerId) {
+        log.info("[rebuildSummary] customerId={}", customerId);
+        try {
+            summaryRepository.deleteByCustomers(List.of(customerId));
+            int rows = summaryRepository.insertFromOrders(List.of(customerId));
+            log.info("[rebuildSummary] success customerId={} rows={}", customerId, rows);
+            return toSummary(customerId, summaryRepository.findByCustomerId(customerId));
+        } catch (Exception e) {
+            log.error("[rebuildSummary] failed customerId={} cause={}", customerId, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_REBUILD_SUMMARY",
+                    "Error rebuilding customer summary", "Exception", e);
+        }
+    }
+
+    /**
+     * Walk the customers in customer_id order, {@code orders.summary.rebuild.batch-size} at a time,
+     * and rebuild each batch in its own transaction, so only that batch's summary rows are locked.
+     * A batch is the next customers of either table: those with orders, and those with summary
+     * rows only, whose rows are deleted.
+     */
+    @Override
+    public int rebuildAll() {
+        log.info("[rebuildSummary] all customers batchSize={}", rebuildBatchSize);
+        String after = "";
+        int customers = 0;
+        int rows = 0;
+        try {
+            while (true) {
+                List<String> batch = nextCustomers(after);
+                if (batch.isEmpty()) break;
+                Integer written = transactionTemplate.execute(tx -> {
+                    summaryRepository.deleteByCustomers(batch);
+                    return summaryRepository.insertFromOrders(batch);
+                });
+                rows += written == null ? 0 : written;
+                customers += batch.size();
+                after = batch.get(batch.size() - 1);
+            }
+            log.info("[rebuildSummary] success all customers customers={} rows={}", customers, rows);
+            return rows;
+        } catch (Exception e) {
+            log.error("[rebuildSummary] failed all customers after customerId={} cause={}", after, e.toString(), e);
+            throw new GenericException(HttpStatus.INTERNAL_SERVER_ERROR, "ERROR_REBUILD_SUMMARY",
+                    "Error rebuilding customer summaries", "Exception", e);
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    /**
+     * The first {@code rebuildBatchSize} customer ids after {@code after} over both tables.
+     */
+    private List<String> nextCustomers(String after) {
+        TreeSet<String> next = new TreeSet<>(summaryRepository.findOrderCustomersAfter(after, rebuildBatchSize));
+        next.addAll(summaryRepository.findSummaryCustomersAfter(after, rebuildBatchSize));
+        return next.stream().limit(rebuildBatchSize).toList();
+    }
+
+    private static CustomerOrderSummary toSummary(String customerId, List<CustomerStatusSummary> rows) {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) counts.put(status, 0L);
+        long totalOrders = 0;
+        BigDecimal totalValue = BigDecimal.ZERO;
+        Instant lastOrderAt = null;
+        for (CustomerStatusSummary row : rows) {
+            counts.put(row.getStatus(), row.getOrderCount());
+            totalOrders += row.getOrderCount();
+            if (row.getStatus() != OrderStatus.CANCELED && row.getOrderValue() != null) {
+                totalValue = totalValue.add(row.getOrderValue());
+            }
+            if (row.getLastCreatedAt() != null && (lastOrderAt == null || row.getLastCreatedAt().isAfter(lastOrderAt))) {
+                lastOrderAt = row.getLastCreatedAt();
+            }
+        }
+        return new CustomerOrderSummary(customerId, Collections.unmodifiableMap(counts), totalOrders, totalValue, lastOrderAt);
+    }
+}
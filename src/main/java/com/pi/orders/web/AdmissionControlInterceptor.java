@@ -0,0 +1,153 @@
+package com.pi.orders.web;
+
+import com.pi.orders.exception.ServiceOverloadedException;
+import com.pi.orders.lib.CustomerRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the order API, applied before the handler runs and before any DB work.
+ * <ul>
+ *     <li>Per customer: a token bucket per {@code customerId} ({@code orders.admission.customer.rate}
+ *     requests per second, bursts up to {@code orders.admission.customer.burst}). The id comes from the
+ *     query parameter here and from the create body in {@link CreateOrderAdmissionAdvice}. Over the
+ *     limit: 429.</li>
+ *     <li>Globally: at most {@code orders.admission.max-concurrent} requests in flight. The rest are
+ *     rejected at once with 503 instead of queueing for a Tomcat thread or a DB connection.</li>
+ *     <li>Streams: the export download and the bulk upload run synchronously and hold their permit
+ *     for as long as the client takes, so they draw from a separate, smaller limit
+ *     ({@code orders.admission.max-concurrent-streams}, 503 beyond it) and never take the
+ *     permits of ordinary requests.</li>
+ * </ul>
+ * The concurrency permit is taken first: a request shed for capacity has not spent its
+ * customer's token. A request over its customer's rate gives the permit straight back.
+ * All answers carry Retry-After.
+ */
+@Component
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+    private static final Set<String> STREAMING_PATHS = Set.of("/api/orders/export", "/api/orders/bulk");
+
+    private final boolean enabled;
+    private final Semaphore inFlight;
+    private final Semaphore streamsInFlight;
+    private final long retryAfterSeconds;
+    private final CustomerRateLimiter customerLimiter;
+    private final Counter rejectedByCustomerRate;
+    private final Counter rejectedByConcurrency;
+    private final Counter rejectedByStreamConcurrency;
+
+    public AdmissionControlInterceptor(MeterRegistry registry,
+                                       @Value("${orders.admission.enabled:true}") boolean enabled,
+                                       @Value("${orders.admission.max-concurrent:50}") int maxConcurrent,
+                                       @Value("${orders.admission.max-concurrent-streams:4}") int maxConcurrentStreams,
+                                       @Value("${orders.admission.retry-after:PT1S}") Duration retryAfter,
+                                       @Value("${orders.admission.customer.rate:20}") double customerRate,
+                                       @Value("${orders.admission.customer.burst:40}") int customerBurst,
+                                       @Value("${orders.admission.customer.idle-expiry:PT5M}") Duration idleExpiry,
+                                       @Value("${orders.admission.customer.max-tracked:100000}") long maxTracked) {
+        if (maxConcurrent < 1 || maxConcurrentStreams < 1) {
+            throw new IllegalArgumentException("orders.admission.max-concurrent and max-concurrent-streams must be positive");
+        }
+        this.enabled = enabled;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.streamsInFlight = new Semaphore(maxConcurrentStreams);
+        this.retryAfterSeconds = Math.max(1L, retryAfter.toSeconds());
+        this.customerLimiter = new CustomerRateLimiter(customerRate, customerBurst, idleExpiry, maxTracked, System::nanoTime);
+        this.rejectedByCustomerRate = rejected(registry, "customer_rate");
+        this.rejectedByConcurrency = rejected(registry, "concurrency");
+        this.rejectedByStreamConcurrency = rejected(registry, "stream_concurrency");
+        Gauge.builder("orders.admission.in_flight", inFlight, s -> maxConcurrent - s.availablePermits())
+                .description("Order API requests currently admitted")
+                .register(registry);
+        Gauge.builder("orders.admission.streams_in_flight", streamsInFlight, s -> maxConcurrentStreams - s.availablePermits())
+                .description("Export downloads and bulk uploads currently admitted")
+                .register(registry);
+        Gauge.builder("orders.admission.customers_tracked", customerLimiter, CustomerRateLimiter::trackedCustomers)
+                .description("Customers with a live rate-limit bucket")
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // async and error dispatches belong to a request that was already admitted
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        boolean stream = STREAMING_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+        Semaphore permits = stream ? streamsInFlight : inFlight;
+        if (!permits.tryAcquire()) {
+            (stream ? rejectedByStreamConcurrency : rejectedByConcurrency).increment();
+            throw new ServiceOverloadedException(HttpStatus.SERVICE_UNAVAILABLE, "OVERLOADED", "Service overloaded",
+                    stream ? "Too many exports and bulk uploads in flight, retry later" : "Too many requests in flight, retry later",
+                    retryAfterSeconds);
+        }
+        try {
+            admitCustomer(request.getParameter("customerId"));
+        } catch (ServiceOverloadedException e) {
+            // a preHandle that throws gets no afterCompletion
+            permits.release();
+            throw e;
+        }
+        request.setAttribute(PERMIT, permits);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    /**
+     * Charge one request to {@code customerId}'s bucket; a null or blank id is not limited here.
+     *
+     * @throws ServiceOverloadedException 429 if the customer is over its rate
+     */
+    public void admitCustomer(String customerId) {
+        if (!enabled || customerId == null || customerId.isBlank()) {
+            return;
+        }
+        long waitNanos = customerLimiter.tryAcquire(customerId);
+        if (waitNanos > 0) {
+            rejectedByCustomerRate.increment();
+            long retryAfter = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new ServiceOverloadedException(HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED",
+                    "Rate limit exceeded", "Too many requests for customer " + customerId + ", retry later", retryAfter);
+        }
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT) instanceof Semaphore permits) {
+            request.removeAttribute(PERMIT);
+            permits.release();
+        }
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("orders.admission.rejected")
+                .description("Order API requests shed by admission control")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
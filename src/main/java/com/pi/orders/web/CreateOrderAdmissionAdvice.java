@@ -0,0 +1,35 @@
+package com.pi.orders.web;
+
+import com.pi.orders.web.dto.CreateOrderRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Applies the per-customer rate limit to order creation, where the customer id is in the body:
+ * runs as soon as the body is read, before validation and the service call.
+ */
+@ControllerAdvice(assignableTypes = OrderController.class)
+@RequiredArgsConstructor
+public class CreateOrderAdmissionAdvice extends RequestBodyAdviceAdapter {
+
+    private final AdmissionControlInterceptor admissionControl;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return CreateOrderRequest.class.equals(targetType);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        admissionControl.admitCustomer(((CreateOrderRequest) body).customerId());
+        return body;
+    }
+}
@@ -1,15 +1,31 @@
 package com.pi.orders.web;
 
+import com.pi.orders.configuration.MessageFormatConfig;
 import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.lib.OrderETag;
+import com.pi.orders.service.ExportFormat;
+import com.pi.orders.service.IdempotentCreate;
+import com.pi.orders.service.OrderExportService;
+import com.pi.orders.service.OrderIdempotencyService;
+import com.pi.orders.service.OrderIngestService;
 import com.pi.orders.service.OrderService;
+import com.pi.orders.service.OrderSummaryService;
 import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.CustomerOrderSummary;
+import com.pi.orders.web.dto.CursorPage;
 import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,10 +34,15 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -29,28 +50,159 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final OrderIngestService orderIngestService;
+    private final OrderExportService orderExportService;
+    private final OrderSummaryService orderSummaryService;
+    private final ContentNegotiationManager contentNegotiationManager;
 
     /**
      * Create a new order for a customer.
      * <p>
      * Request body: {@link CreateOrderRequest}
+     * Headers: Idempotency-Key (optional, up to 255 characters). A repeat with the same key gets
+     * the order of the first request instead of a new one (also while the first is still running),
+     * marked with Idempotent-Replayed: true; 422 if the key was used for a different body.
      * Response: 201 Created with {@link OrderResponse} in JSON.
      */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(request));
+    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request,
+                                                     @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(request));
+        }
+        IdempotentCreate result = orderIdempotencyService.createOrder(idempotencyKey, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(result.replayed()))
+                .body(result.order());
+    }
+
+    /**
+     * Bulk-create orders from a newline-delimited JSON stream (one {@link CreateOrderRequest} per line).
+     * <p>
+     * Path: /api/orders/bulk
+     * Request body: application/x-ndjson, read incrementally.
+     * Response: 200 OK streaming application/x-ndjson, one line per record:
+     * {"line":n,"id":...} when created or {"line":n,"error":"...","details":"..."} when rejected.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkIngest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        orderIngestService.ingest(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Stream a customer's full order history, oldest first, with items.
+     * <p>
+     * Path: /api/orders/export
+     * Query:
+     * - customerId (required), status (repeatable, optional)
+     * - from (inclusive), to (exclusive): optional ISO-8601 instants on createdAt
+     * - format: ndjson (default, one {@link OrderResponse} per line) or csv (one row per item)
+     * Response: 200 OK streamed as an attachment; 400 on an unknown format or an empty date range.
+     */
+    @GetMapping(path = "/export")
+    public void export(@RequestParam(name = "customerId") String customerId,
+                       @RequestParam(name = "status", required = false) List<OrderStatus> statuses,
+                       @RequestParam(name = "from", required = false) Instant from,
+                       @RequestParam(name = "to", required = false) Instant to,
+                       @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("orders." + exportFormat.fileExtension()).build().toString());
+        orderExportService.export(customerId, statuses, from, to, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Dashboard figures for a customer: order count per status, lifetime spend (CANCELED
+     * excluded) and last order time, read from the summary table rather than the orders.
+     * <p>
+     * Path: /api/orders/summary
+     * Query: customerId (required)
+     * Response: 200 OK with {@link CustomerOrderSummary}; zero counts for an unknown customer.
+     */
+    @GetMapping(path = "/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CustomerOrderSummary> summary(@RequestParam(name = "customerId") String customerId) {
+        return ResponseEntity.ok(orderSummaryService.getSummary(customerId));
+    }
+
+    /**
+     * Recompute one customer's summary from the orders table (drift repair). All customers at once
+     * is an operator task ({@code orders.summary.rebuild-all.enabled}), not an endpoint.
+     * <p>
+     * Path: /api/orders/summary/rebuild
+     * Query: customerId (required)
+     * Response: 200 OK with the rebuilt {@link CustomerOrderSummary}.
+     */
+    @PostMapping(path = "/summary/rebuild", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CustomerOrderSummary> rebuildSummary(@RequestParam(name = "customerId") String customerId) {
+        return ResponseEntity.ok(orderSummaryService.rebuild(customerId));
+    }
+
+    /**
+     * Orders containing a SKU on any line (recalls, stock issues), newest first, without items.
+     * <p>
+     * Path: /api/orders/by-sku
+     * Query:
+     * - sku (required), status (repeatable, optional)
+     * - from (inclusive), to (exclusive): optional ISO-8601 instants on createdAt
+     * - cursor (optional, from the previous page), size (default 20)
+     * Response: 200 OK with a {@link CursorPage} of {@link OrderSummaryResponse} and a weak ETag
+     * (per format, with Vary: Accept); 400 on a blank SKU, an empty date range or a malformed cursor.
+     */
+    @GetMapping(path = "/by-sku", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageFormatConfig.APPLICATION_CBOR, MessageFormatConfig.APPLICATION_SMILE})
+    public ResponseEntity<CursorPage<OrderSummaryResponse>> findBySku(
+            @RequestParam(name = "sku") String sku,
+            @RequestParam(name = "status", required = false) List<OrderStatus> statuses,
+            @RequestParam(name = "from", required = false) Instant from,
+            @RequestParam(name = "to", required = false) Instant to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            NativeWebRequest request) {
+        CursorPage<OrderSummaryResponse> result = orderService.findOrdersBySku(sku, statuses, from, to, cursor, size);
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(OrderETag.weakForSummaries(format(request), result.content(), "sku", sku, result.size(), result.nextCursor()))
+                .body(result);
     }
 
     /**
      * Get order details by ID.
      * <p>
      * Path: /api/orders/{id}
-     * Response: 200 OK with {@link OrderResponse}; 404 if not found.
+     * Headers: If-None-Match (optional), the ETag of a previous response; Accept selects JSON
+     * (default), CBOR or Smile.
+     * Response: 200 OK with {@link OrderResponse} and an ETag of that format, Vary: Accept;
+     * 304 Not Modified when the tag still matches, decided from the cache or the order row
+     * alone (no items, no body); 404 if not found.
      */
-    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<OrderResponse> getOrderDetails(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(orderService.getOrderDetails(id));
+    @GetMapping(path = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageFormatConfig.APPLICATION_CBOR, MessageFormatConfig.APPLICATION_SMILE})
+    public ResponseEntity<OrderResponse> getOrderDetails(@PathVariable("id") Long id, NativeWebRequest request,
+                                                         HttpServletResponse response) {
+        String format = format(request);
+        // on the 304 as well, which the ResponseEntity below does not reach
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(OrderETag.of(id, orderService.getOrderLastModified(id), format))) {
+            return null; // 304 with the ETag already set
+        }
+        OrderResponse order = orderService.getOrderDetails(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(OrderETag.of(order.id(), order.updatedAt(), format))
+                .body(order);
     }
 
     /**
@@ -72,21 +224,111 @@ public class OrderController {
      * - status (repeatable): ?status=PENDING&status=SHIPPED
      * - page (default 0), size (default 20)
      * - sort (default "createdAt,desc"), format: field,dir
-     * Response: 200 OK with a Page of {@link OrderResponse}.
+     * Response: 200 OK with a Page of {@link OrderResponse} and a weak ETag; 304 when If-None-Match matches.
+     * JSON by default; CBOR or Smile per the Accept header, with Vary: Accept and a tag per format.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageFormatConfig.APPLICATION_CBOR, MessageFormatConfig.APPLICATION_SMILE})
+    public ResponseEntity<Page<OrderResponse>> listByCustomer(
+            @RequestParam(name = "customerId") String customerId,
+            @RequestParam(name = "status", required = false) List<OrderStatus> statuses,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "sort", defaultValue = "createdAt,desc") String sort,
+            NativeWebRequest request) {
+
+        Page<OrderResponse> result = orderService.listOrders(customerId, statuses, pageable(page, size, sort));
+        // Spring answers a matching If-None-Match on a 200 GET with 304 and no body
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(OrderETag.weak(format(request), result.getContent(), result.getNumber(), result.getSize(),
+                        result.getTotalElements()))
+                .body(result);
+    }
+
+    /**
+     * Cursor (keyset) variant of {@link #listByCustomer}; newest first, no count query.
+     * <p>
+     * Path: /api/orders?mode=cursor
+     * Query:
+     * - customerId, status (repeatable) as above
+     * - cursor: opaque value from the previous page's nextCursor; omit for the first page
+     * - size (default 20)
+     * Response: 200 OK with a {@link CursorPage} of {@link OrderResponse} and a weak ETag; 304 when
+     * If-None-Match matches; 400 on a malformed cursor. Formats as for {@link #listByCustomer}.
      */
-    @GetMapping
-    public Page<OrderResponse> listByCustomer(
+    @GetMapping(params = "mode=cursor", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageFormatConfig.APPLICATION_CBOR, MessageFormatConfig.APPLICATION_SMILE})
+    public ResponseEntity<CursorPage<OrderResponse>> listByCustomerCursor(
+            @RequestParam(name = "customerId") String customerId,
+            @RequestParam(name = "status", required = false) List<OrderStatus> statuses,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            NativeWebRequest request) {
+        CursorPage<OrderResponse> result = orderService.listOrders(customerId, statuses, cursor, size);
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(OrderETag.weak(format(request), result.content(), result.size(), result.nextCursor()))
+                .body(result);
+    }
+
+    /**
+     * Summary view of {@link #listByCustomer}: id, customerId, status, total and dates per order,
+     * no items. Served by one projection query (plus the page count), never reading order_items.
+     * <p>
+     * Path: /api/orders?view=summary
+     * Query: customerId, status, page, size, sort as for {@link #listByCustomer}
+     * Response: 200 OK with a Page of {@link OrderSummaryResponse} and a weak ETag; formats as above.
+     */
+    @GetMapping(params = "view=summary", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageFormatConfig.APPLICATION_CBOR, MessageFormatConfig.APPLICATION_SMILE})
+    public ResponseEntity<Page<OrderSummaryResponse>> listSummariesByCustomer(
             @RequestParam(name = "customerId") String customerId,
             @RequestParam(name = "status", required = false) List<OrderStatus> statuses,
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "20") int size,
-            @RequestParam(name = "sort", defaultValue = "createdAt,desc") String sort) {
+            @RequestParam(name = "sort", defaultValue = "createdAt,desc") String sort,
+            NativeWebRequest request) {
+        Page<OrderSummaryResponse> result = orderService.listOrderSummaries(customerId, statuses, pageable(page, size, sort));
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(OrderETag.weakForSummaries(format(request), result.getContent(), "summary",
+                        result.getNumber(), result.getSize(), result.getTotalElements()))
+                .body(result);
+    }
 
+    /**
+     * Summary view of {@link #listByCustomerCursor}; one projection query per page.
+     * <p>
+     * Path: /api/orders?view=summary&mode=cursor
+     * Query: customerId, status, cursor, size as for {@link #listByCustomerCursor}
+     * Response: 200 OK with a {@link CursorPage} of {@link OrderSummaryResponse} and a weak ETag.
+     */
+    @GetMapping(params = {"view=summary", "mode=cursor"}, produces = {MediaType.APPLICATION_JSON_VALUE,
+            MessageFormatConfig.APPLICATION_CBOR, MessageFormatConfig.APPLICATION_SMILE})
+    public ResponseEntity<CursorPage<OrderSummaryResponse>> listSummariesByCustomerCursor(
+            @RequestParam(name = "customerId") String customerId,
+            @RequestParam(name = "status", required = false) List<OrderStatus> statuses,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            NativeWebRequest request) {
+        CursorPage<OrderSummaryResponse> result = orderService.listOrderSummaries(customerId, statuses, cursor, size);
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(OrderETag.weakForSummaries(format(request), result.content(), "summary", result.size(), result.nextCursor()))
+                .body(result);
+    }
+
+    /* -------------------- helpers -------------------- */
+
+    private String format(NativeWebRequest request) {
+        return ReadFormats.selected(contentNegotiationManager, request);
+    }
+
+    private static Pageable pageable(int page, int size, String sort) {
         String[] parts = sort.split(",", 2);
         Sort.Direction dir = (parts.length == 2 && "asc".equalsIgnoreCase(parts[1]))
                 ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(dir, parts[0]));
-
-        return orderService.listOrders(customerId, statuses, pageable);
+        return PageRequest.of(page, size, Sort.by(dir, parts[0]));
     }
 }
@@ -0,0 +1,57 @@
+package com.pi.orders.web;
+
+import com.pi.orders.configuration.MessageFormatConfig;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The formats order reads are negotiated over, and which one a request gets.
+ * <p>
+ * The selection mirrors Spring MVC's converter selection (Accept types as resolved by the
+ * {@link ContentNegotiationManager}, intersected with {@link #PRODUCES} in that order, most
+ * specific and highest quality first), so the controller knows the format before the body is
+ * written and can put it in the ETag that also decides a 304.
+ */
+final class ReadFormats {
+
+    static final MediaType CBOR = MediaType.parseMediaType(MessageFormatConfig.APPLICATION_CBOR);
+    static final MediaType SMILE = MediaType.parseMediaType(MessageFormatConfig.APPLICATION_SMILE);
+    // the produces order of the read endpoints: JSON first, so it is the default
+    static final List<MediaType> PRODUCES = List.of(MediaType.APPLICATION_JSON, CBOR, SMILE);
+
+    private ReadFormats() {
+    }
+
+    /**
+     * Subtype of the format the response will be written in ({@code json}, {@code cbor},
+     * {@code x-jackson-smile}); {@code json} when nothing else applies (Spring answers 406 then anyway).
+     */
+    static String selected(ContentNegotiationManager contentNegotiationManager, NativeWebRequest request) {
+        List<MediaType> acceptable;
+        try {
+            acceptable = contentNegotiationManager.resolveMediaTypes(request);
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return MediaType.APPLICATION_JSON.getSubtype();
+        }
+        List<MediaType> compatible = new ArrayList<>();
+        for (MediaType requested : acceptable) {
+            for (MediaType producible : PRODUCES) {
+                if (requested.isCompatibleWith(producible)) {
+                    MediaType withQuality = producible.copyQualityValue(requested);
+                    compatible.add(requested.isLessSpecific(withQuality) ? withQuality : requested);
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+        for (MediaType mediaType : compatible) {
+            if (mediaType.isConcrete()) return mediaType.getSubtype();
+        }
+        return MediaType.APPLICATION_JSON.getSubtype();
+    }
+}
@@ -0,0 +1,11 @@
+package com.pi.orders.web.dto;
+
+import java.util.List;
+
+/**
+ * Keyset page: no totals, just whether another page exists and the opaque cursor to fetch it.
+ *
+ * @param nextCursor pass back as {@code cursor} to get the next page; null when {@code hasNext} is false
+ */
+public record CursorPage<T>(List<T> content, int size, boolean hasNext, String nextCursor) {
+}
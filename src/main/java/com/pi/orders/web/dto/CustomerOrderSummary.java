@@ -0,0 +1,21 @@
+package com.pi.orders.web.dto;
+
+import com.pi.orders.domain.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Per-customer order dashboard figures, served from the summary read model.
+ *
+ * @param counts      number of orders per status (every status present, 0 when none)
+ * @param totalValue  lifetime spend: sum of order totals, excluding CANCELED orders
+ * @param lastOrderAt creation time of the customer's newest order; null when there is none
+ */
+public record CustomerOrderSummary(String customerId,
+                                   Map<OrderStatus, Long> counts,
+                                   long totalOrders,
+                                   BigDecimal totalValue,
+                                   Instant lastOrderAt) {
+}
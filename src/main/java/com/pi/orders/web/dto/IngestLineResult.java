@@ -0,0 +1,18 @@
+package com.pi.orders.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One NDJSON result line of the bulk-ingest endpoint; either {@code id} or {@code error} is set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestLineResult(long line, Long id, String error, String details) {
+
+    public static IngestLineResult created(long line, Long id) {
+        return new IngestLineResult(line, id, null, null);
+    }
+
+    public static IngestLineResult failed(long line, String error, String details) {
+        return new IngestLineResult(line, null, error, details);
+    }
+}
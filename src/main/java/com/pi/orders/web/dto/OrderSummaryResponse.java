@@ -0,0 +1,20 @@
+package com.pi.orders.web.dto;
+
+import com.pi.orders.domain.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * List row of the summary view ({@code view=summary}): the order header without its items.
+ * Built directly by JPQL constructor expressions, so no entity or item is loaded.
+ */
+public record OrderSummaryResponse(
+        Long id,
+        String customerId,
+        OrderStatus status,
+        BigDecimal total,
+        Instant createdAt,
+        Instant updatedAt
+) {
+}
@@ -1,6 +1,137 @@
+-- Schema owned by spring.sql.init (runs on every start), Hibernate does not touch it
+-- (ddl-auto: none). Every statement must be idempotent. Changes go into a new version
+-- block at the end; applied blocks are never edited.
+
+CREATE TABLE IF NOT EXISTS schema_version (
+  version      INT          NOT NULL PRIMARY KEY,
+  description  VARCHAR(255) NOT NULL,
+  applied_at   TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- V1: scheduler lock table
 CREATE TABLE IF NOT EXISTS shedlock (
   name        VARCHAR(64)  NOT NULL PRIMARY KEY,
   lock_until  TIMESTAMP(3) NOT NULL,
   locked_at   TIMESTAMP(3) NOT NULL,
   locked_by   VARCHAR(255) NOT NULL
 );
+MERGE INTO schema_version (version, description) KEY (version) VALUES (1, 'shedlock');
+
+-- V2: orders, order items, pooled id sequences and access-path indexes
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS orders (
+  id           BIGINT                      NOT NULL PRIMARY KEY,
+  customer_id  VARCHAR(255),
+  status       VARCHAR(32),
+  created_at   TIMESTAMP(6) WITH TIME ZONE,
+  updated_at   TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+  id          BIGINT         NOT NULL PRIMARY KEY,
+  sku         VARCHAR(255),
+  name        VARCHAR(255),
+  quantity    INTEGER        NOT NULL,
+  unit_price  NUMERIC(38, 2),
+  order_id    BIGINT,
+  CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id)
+);
+
+-- listByCustomer (offset and cursor): equality on customer_id/status, ordered by created_at
+CREATE INDEX IF NOT EXISTS idx_orders_customer_status_created ON orders (customer_id, status, created_at);
+-- promotion keyset scan: status = ? AND id > ? ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders (status, id);
+-- item loading for an order / page of orders
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
+MERGE INTO schema_version (version, description) KEY (version) VALUES (2, 'orders, order_items, sequences, access-path indexes');
+
+-- V3: persisted line totals and order totals, backfilled for rows written before V3
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS line_total NUMERIC(38, 2);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS total NUMERIC(38, 2);
+UPDATE order_items SET line_total = unit_price * quantity WHERE line_total IS NULL;
+UPDATE orders o SET total = (SELECT COALESCE(SUM(i.line_total), 0) FROM order_items i WHERE i.order_id = o.id)
+WHERE total IS NULL;
+MERGE INTO schema_version (version, description) KEY (version) VALUES (3, 'persisted order and line totals');
+
+-- V4: transactional outbox for order status-change events (rows are deleted once relayed)
+CREATE TABLE IF NOT EXISTS order_events (
+  id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  order_id     BIGINT                      NOT NULL,
+  customer_id  VARCHAR(255),
+  from_status  VARCHAR(32),
+  to_status    VARCHAR(32)                 NOT NULL,
+  occurred_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+MERGE INTO schema_version (version, description) KEY (version) VALUES (4, 'order_events outbox');
+
+-- V5: optimistic lock version on orders
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+MERGE INTO schema_version (version, description) KEY (version) VALUES (5, 'orders.version');
+
+-- V6: per-customer order summary read model, one row per (customer, status); maintained
+-- incrementally with every order change. Backfilled from orders the first time it is empty.
+CREATE TABLE IF NOT EXISTS customer_status_summary (
+  customer_id      VARCHAR(255)                NOT NULL,
+  status           VARCHAR(32)                 NOT NULL,
+  order_count      BIGINT                      NOT NULL,
+  order_value      NUMERIC(38, 2)              NOT NULL,
+  last_created_at  TIMESTAMP(6) WITH TIME ZONE,
+  CONSTRAINT pk_customer_status_summary PRIMARY KEY (customer_id, status)
+);
+INSERT INTO customer_status_summary (customer_id, status, order_count, order_value, last_created_at)
+SELECT customer_id, status, COUNT(*), COALESCE(SUM(total), 0), MAX(created_at)
+FROM orders
+WHERE customer_id IS NOT NULL AND status IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM customer_status_summary)
+GROUP BY customer_id, status;
+MERGE INTO schema_version (version, description) KEY (version) VALUES (6, 'customer_status_summary read model');
+
+-- V7: Idempotency-Key store for order creation; one row per key, written in the creating
+-- transaction and purged by IdempotencyKeyCleanupJob once older than orders.idempotency.ttl
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  idem_key      VARCHAR(255)                NOT NULL PRIMARY KEY,
+  request_hash  VARCHAR(64)                 NOT NULL,
+  order_id      BIGINT                      NOT NULL,
+  created_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+-- cleanup scan: created_at < cutoff
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys (created_at);
+MERGE INTO schema_version (version, description) KEY (version) VALUES (7, 'idempotency_keys');
+
+-- V8: orders containing a SKU (recalls, stock issues): sku = ? resolves to order ids from
+-- this index alone; the orders are then read by primary key
+CREATE INDEX IF NOT EXISTS idx_order_items_sku_order ON order_items (sku, order_id);
+MERGE INTO schema_version (version, description) KEY (version) VALUES (8, 'order_items (sku, order_id) index');
+
+-- V9: customer lists without a status filter, or with several statuses: customer_id = ? in
+-- (created_at DESC, id DESC) order is read straight off this index, newest first, and a keyset
+-- cursor seeks into it; (customer_id, status, created_at) only serves one status at a time
+CREATE INDEX IF NOT EXISTS idx_orders_customer_created_id ON orders (customer_id, created_at, id);
+MERGE INTO schema_version (version, description) KEY (version) VALUES (9, 'orders (customer_id, created_at, id) index');
+
+-- V10: move the pooled sequences past ids already in the tables. A database from before V2
+-- kept its IDENTITY rows (1..n) while V2 started both sequences at 1. A pooled block ends at
+-- the sequence value, so next value >= MAX(id) + 50 hands out only fresh ids. GREATEST keeps
+-- a sequence that is already ahead where it is, so re-running this on every start is a no-op.
+ALTER SEQUENCE orders_seq RESTART WITH (
+  SELECT GREATEST(BASE_VALUE, (SELECT COALESCE(MAX(id), 0) + 50 FROM orders))
+  FROM INFORMATION_SCHEMA.SEQUENCES
+  WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND SEQUENCE_NAME = 'ORDERS_SEQ');
+ALTER SEQUENCE order_items_seq RESTART WITH (
+  SELECT GREATEST(BASE_VALUE, (SELECT COALESCE(MAX(id), 0) + 50 FROM order_items))
+  FROM INFORMATION_SCHEMA.SEQUENCES
+  WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND SEQUENCE_NAME = 'ORDER_ITEMS_SEQ');
+MERGE INTO schema_version (version, description) KEY (version) VALUES (10, 'restart pooled sequences past existing ids');
+
+-- V11: the response the first request of an idempotency key returned (OrderResponse JSON), so a
+-- replay from the table answers with it, as a replay from memory does, rather than with the
+-- order's current state. NULL for keys stored before V11; those replay the current order.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS response_body CLOB;
+MERGE INTO schema_version (version, description) KEY (version) VALUES (11, 'idempotency_keys response_body');
+
+-- V12: oldest order in a status (orders_pending_oldest_age_seconds): status = ? ORDER BY
+-- created_at reads the first entry of this index instead of sorting every PENDING row
+CREATE INDEX IF NOT EXISTS idx_orders_status_created ON orders (status, created_at);
+MERGE INTO schema_version (version, description) KEY (version) VALUES (12, 'orders (status, created_at) index');
@@ -0,0 +1,166 @@
+package com.pi.orders;
+
+import com.pi.orders.exception.ServiceOverloadedException;
+import com.pi.orders.lib.CustomerRateLimiter;
+import com.pi.orders.web.AdmissionControlInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdmissionControlTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /* ---------- per-customer buckets ---------- */
+
+    @Test
+    void customerBucket_admitsTheBurst_thenRefillsAtTheRate() {
+        AtomicLong clock = new AtomicLong(42 * SECOND);
+        CustomerRateLimiter limiter = new CustomerRateLimiter(2, 3, Duration.ofMinutes(5), 100, clock::get);
+
+        assertThat(limiter.tryAcquire("c1")).isZero();
+        assertThat(limiter.tryAcquire("c1")).isZero();
+        assertThat(limiter.tryAcquire("c1")).isZero();
+        assertThat(limiter.tryAcquire("c1")).isEqualTo(SECOND / 2);
+        // a rejected request takes nothing: the wait does not grow
+        assertThat(limiter.tryAcquire("c1")).isEqualTo(SECOND / 2);
+
+        clock.addAndGet(SECOND / 2);
+        assertThat(limiter.tryAcquire("c1")).isZero();
+        assertThat(limiter.tryAcquire("c1")).isPositive();
+    }
+
+    @Test
+    void customerBuckets_areIndependent() {
+        AtomicLong clock = new AtomicLong();
+        CustomerRateLimiter limiter = new CustomerRateLimiter(1, 1, Duration.ofMinutes(5), 100, clock::get);
+
+        assertThat(limiter.tryAcquire("c1")).isZero();
+        assertThat(limiter.tryAcquire("c1")).isPositive();
+        assertThat(limiter.tryAcquire("c2")).isZero();
+        assertThat(limiter.trackedCustomers()).isEqualTo(2);
+    }
+
+    /* ---------- interceptor ---------- */
+
+    private static AdmissionControlInterceptor interceptor(SimpleMeterRegistry registry, int maxConcurrent, int burst) {
+        return new AdmissionControlInterceptor(registry, true, maxConcurrent, 1, Duration.ofSeconds(2),
+                0.001, burst, Duration.ofMinutes(5), 100);
+    }
+
+    private static MockHttpServletRequest request(String customerId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        if (customerId != null) request.setParameter("customerId", customerId);
+        return request;
+    }
+
+    @Test
+    void overCapacity_isShedWith503_untilAPermitIsReleased() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlInterceptor admission = interceptor(registry, 1, 100);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest first = request(null);
+
+        assertThat(admission.preHandle(first, response, null)).isTrue();
+        assertThatThrownBy(() -> admission.preHandle(request(null), response, null))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(2);
+                });
+
+        admission.afterCompletion(first, response, null, null);
+        // released once only, however often completion is reported
+        admission.afterCompletion(first, response, null, null);
+        assertThat(admission.preHandle(request(null), response, null)).isTrue();
+        assertThatThrownBy(() -> admission.preHandle(request(null), response, null))
+                .isInstanceOf(ServiceOverloadedException.class);
+        assertThat(registry.counter("orders.admission.rejected", "reason", "concurrency").count()).isEqualTo(2);
+    }
+
+    @Test
+    void customerOverItsRate_gets429_withoutTakingAPermit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlInterceptor admission = interceptor(registry, 1, 1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest first = request("c1");
+
+        assertThat(admission.preHandle(first, response, null)).isTrue();
+        admission.afterCompletion(first, response, null, null);
+
+        assertThatThrownBy(() -> admission.preHandle(request("c1"), response, null))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getRetryAfterSeconds()).isPositive();
+                });
+        assertThat(admission.preHandle(request("c2"), response, null)).isTrue();
+        assertThat(registry.counter("orders.admission.rejected", "reason", "customer_rate").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shedForCapacity_doesNotSpendTheCustomersToken() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlInterceptor admission = interceptor(registry, 1, 1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest holder = request(null);
+
+        assertThat(admission.preHandle(holder, response, null)).isTrue();
+        assertThatThrownBy(() -> admission.preHandle(request("c1"), response, null))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        admission.afterCompletion(holder, response, null, null);
+
+        // c1's only token is still there
+        assertThat(admission.preHandle(request("c1"), response, null)).isTrue();
+        assertThat(registry.counter("orders.admission.rejected", "reason", "customer_rate").count()).isZero();
+    }
+
+    @Test
+    void longRunningStream_takesAStreamPermit_notAnOrdinaryOne() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlInterceptor admission = interceptor(registry, 1, 100);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/orders/export");
+        export.setParameter("customerId", "c1");
+
+        // the export is admitted and keeps streaming (no completion yet)
+        assertThat(admission.preHandle(export, response, null)).isTrue();
+        assertThat(registry.get("orders.admission.streams_in_flight").gauge().value()).isEqualTo(1);
+        // ordinary traffic still has its permit
+        assertThat(admission.preHandle(request(null), response, null)).isTrue();
+        // a second stream is over the stream limit
+        MockHttpServletRequest bulk = new MockHttpServletRequest("POST", "/api/orders/bulk");
+        assertThatThrownBy(() -> admission.preHandle(bulk, response, null))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(registry.counter("orders.admission.rejected", "reason", "stream_concurrency").count()).isEqualTo(1);
+        assertThat(registry.counter("orders.admission.rejected", "reason", "concurrency").count()).isZero();
+
+        admission.afterCompletion(export, response, null, null);
+        assertThat(admission.preHandle(bulk, response, null)).isTrue();
+    }
+
+    @Test
+    void asyncDispatch_isNotAdmittedAgain() {
+        AdmissionControlInterceptor admission = interceptor(new SimpleMeterRegistry(), 1, 100);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest export = request("c1");
+
+        assertThat(admission.preHandle(export, response, null)).isTrue();
+        admission.afterConcurrentHandlingStarted(export, response, null);
+        export.setDispatcherType(DispatcherType.ASYNC);
+        assertThat(admission.preHandle(export, response, null)).isTrue();
+        admission.afterCompletion(export, response, null, null);
+
+        // the permit went back at hand-off and was not taken twice
+        assertThat(admission.preHandle(request(null), response, null)).isTrue();
+    }
+}
@@ -0,0 +1,55 @@
+package com.pi.orders;
+
+import com.pi.orders.lib.BoundedLineReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedLineReaderTest {
+
+    private static List<BoundedLineReader.Line> lines(String input, int maxLineBytes) throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), maxLineBytes);
+        List<BoundedLineReader.Line> lines = new ArrayList<>();
+        BoundedLineReader.Line line;
+        while ((line = reader.readLine()) != null) lines.add(line);
+        return lines;
+    }
+
+    @Test
+    void splitsLikeBufferedReader_onLfAndCrLf_withALastLineWithoutNewline() throws IOException {
+        assertThat(lines("a\r\n\nb\nc", 16)).extracting(BoundedLineReader.Line::text)
+                .containsExactly("a", "", "b", "c");
+        assertThat(lines("", 16)).isEmpty();
+        assertThat(lines("a\n", 16)).extracting(BoundedLineReader.Line::text).containsExactly("a");
+    }
+
+    @Test
+    void lineAtTheLimit_isKept_acrossReadBuffers_withMultiByteCharacters() throws IOException {
+        // 3 bytes per character, straddling the 8 KiB read buffer
+        String wide = "€".repeat(6_000);
+
+        List<BoundedLineReader.Line> lines = lines(wide + "\nnext", 18_000);
+
+        assertThat(lines.get(0).text()).isEqualTo(wide);
+        assertThat(lines.get(0).bytes()).isEqualTo(18_000);
+        assertThat(lines.get(1).text()).isEqualTo("next");
+    }
+
+    @Test
+    void lineOverTheLimit_isSkippedToItsNewline() throws IOException {
+        List<BoundedLineReader.Line> lines = lines("ok\n" + "x".repeat(50_000) + "\r\nafter", 1_000);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0).text()).isEqualTo("ok");
+        assertThat(lines.get(1).tooLong()).isTrue();
+        assertThat(lines.get(1).bytes()).isEqualTo(50_001);
+        assertThat(lines.get(2).text()).isEqualTo("after");
+    }
+}
@@ -0,0 +1,59 @@
+package com.pi.orders;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import com.pi.orders.configuration.LogSamplingTurboFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogSamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private LogSamplingTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LogSamplingTurboFilter();
+        filter.setContext(context);
+        filter.setRates("com.pi.orders.service=2, com.pi.orders.service.impl.OrderServiceImpl=3");
+        filter.start();
+    }
+
+    private FilterReply decide(String logger, Level level) {
+        return filter.decide(null, context.getLogger(logger), level, "[x] y={}", new Object[]{1}, null);
+    }
+
+    @Test
+    void keepsOneInN_forInfo_usingLongestPrefix() {
+        String impl = "com.pi.orders.service.impl.OrderServiceImpl";
+        assertThat(decide(impl, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(impl, Level.INFO)).isEqualTo(FilterReply.DENY);
+        assertThat(decide(impl, Level.INFO)).isEqualTo(FilterReply.DENY);
+        assertThat(decide(impl, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+
+        String job = "com.pi.orders.service.PendingPromotionJob";
+        assertThat(decide(job, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(job, Level.INFO)).isEqualTo(FilterReply.DENY);
+    }
+
+    @Test
+    void neverSamplesWarnErrorOrUnconfiguredLoggers() {
+        String impl = "com.pi.orders.service.impl.OrderServiceImpl";
+        for (int i = 0; i < 5; i++) {
+            assertThat(decide(impl, Level.WARN)).isEqualTo(FilterReply.NEUTRAL);
+            assertThat(decide(impl, Level.ERROR)).isEqualTo(FilterReply.NEUTRAL);
+            assertThat(decide("com.pi.orders.web.OrderController", Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+        }
+    }
+
+    @Test
+    void levelChecksWithoutMessage_areNotCounted() {
+        String impl = "com.pi.orders.service.impl.OrderServiceImpl";
+        assertThat(filter.decide(null, context.getLogger(impl), Level.INFO, null, null, null)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(impl, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(impl, Level.INFO)).isEqualTo(FilterReply.DENY);
+    }
+}
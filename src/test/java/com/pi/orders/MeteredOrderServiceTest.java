@@ -0,0 +1,60 @@
+package com.pi.orders;
+
+import com.pi.orders.exception.NotFoundException;
+import com.pi.orders.service.impl.MeteredOrderService;
+import com.pi.orders.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MeteredOrderServiceTest {
+
+    @Mock
+    private OrderServiceImpl delegate;
+
+    private SimpleMeterRegistry registry;
+    private MeteredOrderService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new MeteredOrderService(delegate, registry);
+    }
+
+    private long count(String method, String outcome) {
+        return registry.get("orders.service").tag("method", method).tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void recordsSuccessAndErrorLatencyPerMethod() {
+        when(delegate.getOrderDetails(1L)).thenReturn(null);
+        when(delegate.getOrderDetails(2L)).thenThrow(new NotFoundException(HttpStatus.NOT_FOUND, "ORDER_NOT_FOUND",
+                "Order 2 not found", "Order 2 not found", null));
+
+        service.getOrderDetails(1L);
+        assertThatThrownBy(() -> service.getOrderDetails(2L)).isInstanceOf(NotFoundException.class);
+
+        assertThat(count("getOrderDetails", "success")).isEqualTo(1);
+        assertThat(count("getOrderDetails", "error")).isEqualTo(1);
+        assertThat(count("cancelOrder", "success")).isZero();
+    }
+
+    @Test
+    void keysetOverload_isTimedApartFromTheOffsetPage() {
+        service.listOrders("cust-1", List.of(), null, 20);
+
+        assertThat(count("listOrdersByCursor", "success")).isEqualTo(1);
+        assertThat(count("listOrders", "success")).isZero();
+    }
+}
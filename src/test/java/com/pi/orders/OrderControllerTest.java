@@ -1,17 +1,32 @@
 package com.pi.orders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.pi.orders.configuration.MessageFormatConfig;
 import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.lib.OrderETag;
+import com.pi.orders.service.ExportFormat;
+import com.pi.orders.service.IdempotentCreate;
+import com.pi.orders.service.IngestSummary;
+import com.pi.orders.service.OrderExportService;
+import com.pi.orders.service.OrderIdempotencyService;
+import com.pi.orders.service.OrderIngestService;
 import com.pi.orders.service.OrderService;
+import com.pi.orders.service.OrderSummaryService;
 import com.pi.orders.web.OrderController;
 import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.CursorPage;
+import com.pi.orders.web.dto.CustomerOrderSummary;
 import com.pi.orders.web.dto.OrderItemRequest;
 import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -20,22 +35,32 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -43,6 +68,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Thin controller tests — verify HTTP ↔️ service wiring, status codes, and query param → Pageable mapping.
  */
 @WebMvcTest(controllers = OrderController.class)
+@Import({MessageFormatConfig.class, SimpleMeterRegistry.class})
 public class OrderControllerTest {
 
     @Autowired
@@ -52,6 +78,14 @@ public class OrderControllerTest {
 
     @MockBean
     OrderService orderService;
+    @MockBean
+    OrderIdempotencyService orderIdempotencyService;
+    @MockBean
+    OrderIngestService orderIngestService;
+    @MockBean
+    OrderExportService orderExportService;
+    @MockBean
+    OrderSummaryService orderSummaryService;
 
     /* ---------- helpers ---------- */
 
@@ -88,6 +122,27 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.customerId").value("cust-1"));
 
         verify(orderService).createOrder(any(CreateOrderRequest.class));
+        verifyNoInteractions(orderIdempotencyService);
+    }
+
+    @Test
+    void createOrder_withIdempotencyKey_goesThroughTheDedupe_andMarksReplays() throws Exception {
+        var req = new CreateOrderRequest(
+                "cust-1",
+                List.of(new OrderItemRequest("SKU-1", "Mouse", 1, new BigDecimal("499.99")))
+        );
+        when(orderIdempotencyService.createOrder(eq("key-1"), any(CreateOrderRequest.class)))
+                .thenReturn(new IdempotentCreate(sampleResponse(42L), true));
+
+        mockMvc.perform(post("/api/orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(42));
+
+        verify(orderService, never()).createOrder(any());
     }
 
     @Test
@@ -100,6 +155,99 @@ public class OrderControllerTest {
                 .andExpect(jsonPath("$.id").value(7));
 
         verify(orderService).getOrderDetails(7L);
+        verify(orderService, never()).getOrderLastModified(any());
+    }
+
+    @Test
+    void getOrderDetails_negotiatesCbor_withTheSameFieldsAsJson() throws Exception {
+        when(orderService.getOrderDetails(7L)).thenReturn(sampleResponse(7L));
+
+        byte[] body = mockMvc.perform(get("/api/orders/{id}", 7L)
+                        .accept(MessageFormatConfig.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MessageFormatConfig.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        OrderResponse decoded = new CBORMapper().findAndRegisterModules().readValue(body, OrderResponse.class);
+        assertThat(decoded).usingRecursiveComparison()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .isEqualTo(sampleResponse(7L));
+        assertThat(body.length).isLessThan(objectMapper.writeValueAsBytes(sampleResponse(7L)).length);
+    }
+
+    @Test
+    void getOrderDetails_returns304_fromTheTimestampAlone_whenETagMatches() throws Exception {
+        Instant updatedAt = Instant.parse("2025-01-01T00:00:00Z");
+        when(orderService.getOrderLastModified(7L)).thenReturn(updatedAt);
+        String eTag = OrderETag.of(7L, updatedAt, "json");
+
+        mockMvc.perform(get("/api/orders/{id}", 7L)
+                        .header("If-None-Match", eTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+
+        verify(orderService, never()).getOrderDetails(any());
+    }
+
+    @Test
+    void getOrderDetails_tagsEachFormatDifferently_soAStoredCborBodyIsNotRevalidatedForJson() throws Exception {
+        OrderResponse current = sampleResponse(7L);
+        when(orderService.getOrderLastModified(7L)).thenReturn(current.updatedAt());
+        when(orderService.getOrderDetails(7L)).thenReturn(current);
+
+        String cborTag = mockMvc.perform(get("/api/orders/{id}", 7L).accept(MessageFormatConfig.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(cborTag).isEqualTo(OrderETag.of(7L, current.updatedAt(), "cbor"))
+                .isNotEqualTo(OrderETag.of(7L, current.updatedAt(), "json"));
+
+        // a shared cache revalidating its CBOR copy for a JSON client gets the JSON body
+        mockMvc.perform(get("/api/orders/{id}", 7L)
+                        .header("If-None-Match", cborTag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id").value(7));
+        mockMvc.perform(get("/api/orders/{id}", 7L)
+                        .header("If-None-Match", cborTag)
+                        .accept(MessageFormatConfig.APPLICATION_CBOR))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void eTagFormat_isTheFormatTheBodyIsWrittenIn() throws Exception {
+        OrderResponse current = sampleResponse(7L);
+        when(orderService.getOrderDetails(7L)).thenReturn(current);
+
+        for (String accept : List.of("*/*", "application/*", MessageFormatConfig.APPLICATION_CBOR,
+                MessageFormatConfig.APPLICATION_SMILE, "application/json;q=0.5, application/cbor",
+                "application/cbor;q=0.1, application/x-jackson-smile;q=0.2, application/json",
+                "text/html, application/x-jackson-smile;q=0.9")) {
+            var response = mockMvc.perform(get("/api/orders/{id}", 7L).header("Accept", accept))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            String subtype = MediaType.parseMediaType(response.getContentType()).getSubtype();
+            assertThat(response.getHeader("ETag")).as(accept)
+                    .isEqualTo(OrderETag.of(7L, current.updatedAt(), subtype));
+        }
+    }
+
+    @Test
+    void getOrderDetails_returns200WithNewETag_whenOrderChanged() throws Exception {
+        OrderResponse current = sampleResponse(7L);
+        when(orderService.getOrderLastModified(7L)).thenReturn(current.updatedAt());
+        when(orderService.getOrderDetails(7L)).thenReturn(current);
+
+        mockMvc.perform(get("/api/orders/{id}", 7L)
+                        .header("If-None-Match", OrderETag.of(7L, current.updatedAt().minusSeconds(1), "json"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", OrderETag.of(7L, current.updatedAt(), "json")))
+                .andExpect(jsonPath("$.id").value(7));
     }
 
     @Test
@@ -118,7 +266,7 @@ public class OrderControllerTest {
     void listByCustomer_defaults_andSortDesc() throws Exception {
         // given defaults: page=0, size=20, sort=createdAt,desc
         Page<OrderResponse> page = new PageImpl<>(List.of(sampleResponse(1L)), PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")), 1);
-        when(orderService.listOrders(anyString(), anyList(), any(Pageable.class))).thenReturn(page);
+        when(orderService.listOrders(anyString(), isNull(), any(Pageable.class))).thenReturn(page);
 
         // when
         mockMvc.perform(get("/api/orders")
@@ -171,6 +319,95 @@ public class OrderControllerTest {
         assertThat(sort.getDirection()).isEqualTo(Sort.Direction.ASC);
     }
 
+    @Test
+    void listByCustomer_cursorMode_usesKeysetService_withoutPageable() throws Exception {
+        when(orderService.listOrders(eq("cust-3"), isNull(), eq("abc"), eq(10)))
+                .thenReturn(new CursorPage<>(List.of(sampleResponse(3L)), 10, true, "next"));
+
+        mockMvc.perform(get("/api/orders")
+                        .param("customerId", "cust-3")
+                        .param("mode", "cursor")
+                        .param("cursor", "abc")
+                        .param("size", "10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(3))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(orderService, never()).listOrders(anyString(), anyList(), any(Pageable.class));
+    }
+
+    @Test
+    void listByCustomer_summaryView_routesToProjection_forBothModes() throws Exception {
+        OrderSummaryResponse row = new OrderSummaryResponse(5L, "cust-1", OrderStatus.PENDING, new BigDecimal("10.00"),
+                Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-01T00:00:00Z"));
+        when(orderService.listOrderSummaries(eq("cust-1"), isNull(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(row), PageRequest.of(0, 20), 1));
+        when(orderService.listOrderSummaries(eq("cust-1"), isNull(), isNull(), eq(20)))
+                .thenReturn(new CursorPage<>(List.of(row), 20, false, null));
+
+        mockMvc.perform(get("/api/orders").param("customerId", "cust-1").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.content[0].items").doesNotExist());
+        mockMvc.perform(get("/api/orders").param("customerId", "cust-1").param("view", "summary").param("mode", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].status").value("PENDING"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        verify(orderService, never()).listOrders(any(), any(), any(Pageable.class));
+        verify(orderService, never()).listOrders(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void findBySku_passesFiltersAndCursor_andReturnsSummaries() throws Exception {
+        OrderSummaryResponse row = new OrderSummaryResponse(5L, "cust-1", OrderStatus.PENDING, new BigDecimal("10.00"),
+                Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-01T00:00:00Z"));
+        when(orderService.findOrdersBySku(eq("SKU-7"), eq(List.of(OrderStatus.PENDING)),
+                eq(Instant.parse("2025-01-01T00:00:00Z")), isNull(), eq("c1"), eq(50)))
+                .thenReturn(new CursorPage<>(List.of(row), 50, true, "c2"));
+
+        mockMvc.perform(get("/api/orders/by-sku")
+                        .param("sku", "SKU-7")
+                        .param("status", "PENDING")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("cursor", "c1")
+                        .param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.content[0].items").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("c2"));
+
+        mockMvc.perform(get("/api/orders/by-sku"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listByCustomer_sendsWeakETag_andAnswers304WhenUnchanged() throws Exception {
+        Page<OrderResponse> page = new PageImpl<>(List.of(sampleResponse(1L)), PageRequest.of(0, 20), 1);
+        when(orderService.listOrders(anyString(), any(), any(Pageable.class))).thenReturn(page);
+
+        String eTag = mockMvc.perform(get("/api/orders").param("customerId", "cust-1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(eTag).startsWith("W/\"");
+
+        mockMvc.perform(get("/api/orders").param("customerId", "cust-1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+
+        // the same page in another format is another representation
+        String smileTag = mockMvc.perform(get("/api/orders").param("customerId", "cust-1").header("If-None-Match", eTag)
+                        .accept(MessageFormatConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(smileTag).startsWith("W/\"").isNotEqualTo(eTag);
+    }
+
     @Test
     void createOrder_validationFails_returns400() throws Exception {
         // Example invalid body: missing items (assuming @Size(min=1) on items)
@@ -181,4 +418,89 @@ public class OrderControllerTest {
                         .content(objectMapper.writeValueAsString(invalid)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void bulkIngest_streamsServiceResults_asNdjson() throws Exception {
+        doAnswer(inv -> {
+            InputStream in = inv.getArgument(0);
+            OutputStream out = inv.getArgument(1);
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains("cust-1");
+            out.write("{\"line\":1,\"id\":42}\n".getBytes(StandardCharsets.UTF_8));
+            return new IngestSummary(1, 1, 0);
+        }).when(orderIngestService).ingest(any(InputStream.class), any(OutputStream.class));
+
+        mockMvc.perform(post("/api/orders/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content("{\"customerId\":\"cust-1\",\"items\":[{\"sku\":\"S\",\"name\":\"N\",\"quantity\":1,\"unitPrice\":1.00}]}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"line\":1,\"id\":42}\n"));
+    }
+
+    @Test
+    void export_streamsCsvAttachment_withFilters() throws Exception {
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(5);
+            out.write("order_id\n42\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(orderExportService).export(eq("cust-1"), eq(List.of(OrderStatus.SHIPPED)),
+                eq(Instant.parse("2025-01-01T00:00:00Z")), isNull(), eq(ExportFormat.CSV), any(OutputStream.class));
+
+        mockMvc.perform(get("/api/orders/export")
+                        .param("customerId", "cust-1")
+                        .param("status", "SHIPPED")
+                        .param("from", "2025-01-01T00:00:00Z")
+                        .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.csv\""))
+                .andExpect(content().string("order_id\n42\n"));
+    }
+
+    @Test
+    void export_unknownFormat_returns400() throws Exception {
+        mockMvc.perform(get("/api/orders/export")
+                        .param("customerId", "cust-1")
+                        .param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderExportService);
+    }
+
+    @Test
+    void summary_returnsCountsAndSpend() throws Exception {
+        when(orderSummaryService.getSummary("cust-1")).thenReturn(new CustomerOrderSummary("cust-1",
+                Map.of(OrderStatus.PENDING, 2L, OrderStatus.CANCELED, 1L), 3, new BigDecimal("30.00"),
+                Instant.parse("2025-01-01T00:00:00Z")));
+
+        mockMvc.perform(get("/api/orders/summary")
+                        .param("customerId", "cust-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.counts.PENDING").value(2))
+                .andExpect(jsonPath("$.totalOrders").value(3))
+                .andExpect(jsonPath("$.totalValue").value(30.00));
+
+        verify(orderSummaryService).getSummary("cust-1");
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void rebuildSummary_rebuildsTheGivenCustomer() throws Exception {
+        when(orderSummaryService.rebuild("cust-1")).thenReturn(new CustomerOrderSummary("cust-1",
+                Map.of(OrderStatus.PENDING, 1L), 1, new BigDecimal("10.00"), Instant.parse("2025-01-01T00:00:00Z")));
+
+        mockMvc.perform(post("/api/orders/summary/rebuild").param("customerId", "cust-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.counts.PENDING").value(1));
+    }
+
+    @Test
+    void rebuildSummary_withoutCustomer_isRejected_neverRebuildsAll() throws Exception {
+        mockMvc.perform(post("/api/orders/summary/rebuild"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderSummaryService);
+    }
 }
@@ -0,0 +1,128 @@
+package com.pi.orders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pi.orders.domain.Order;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.exception.BadRequestException;
+import com.pi.orders.lib.OrderProcessingLibrary;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.ExportFormat;
+import com.pi.orders.service.impl.OrderExportServiceImpl;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.OrderItemRequest;
+import com.pi.orders.web.dto.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Export against the embedded H2 schema: row grouping, filters and both output formats.
+ */
+@DataJpaTest
+public class OrderExportServiceImplTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    DataSource dataSource;
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private OrderExportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        // fetch size smaller than the result so the cursor needs several round trips
+        service = new OrderExportServiceImpl(dataSource, mapper, 2);
+    }
+
+    private Order save(String customerId, Instant createdAt, OrderStatus status, OrderItemRequest... items) {
+        Order order = OrderProcessingLibrary.toOrder(new CreateOrderRequest(customerId, List.of(items)));
+        order.setCreatedAt(createdAt);
+        order.setStatus(status);
+        return orderRepository.save(order);
+    }
+
+    private static OrderItemRequest item(String sku, String name, int quantity, String unitPrice) {
+        return new OrderItemRequest(sku, name, quantity, new BigDecimal(unitPrice));
+    }
+
+    private String export(List<OrderStatus> statuses, Instant from, Instant to, ExportFormat format, long expectedOrders)
+            throws Exception {
+        entityManager.flush();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(service.export("cust-x", statuses, from, to, format, out)).isEqualTo(expectedOrders);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void ndjson_writesOneOrderPerLine_oldestFirst_withItems() throws Exception {
+        Order second = save("cust-x", T0.plusSeconds(60), OrderStatus.PENDING,
+                item("SKU-3", "Cable", 3, "2.00"));
+        Order first = save("cust-x", T0, OrderStatus.SHIPPED,
+                item("SKU-1", "Mouse", 2, "10.25"), item("SKU-2", "Pad", 1, "5.00"));
+        save("cust-other", T0, OrderStatus.PENDING, item("SKU-9", "Other", 1, "1.00"));
+
+        List<OrderResponse> lines = export(null, null, null, ExportFormat.NDJSON, 2).lines()
+                .map(l -> {
+                    try {
+                        return mapper.readValue(l, OrderResponse.class);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .toList();
+
+        assertThat(lines).extracting(OrderResponse::id).containsExactly(first.getId(), second.getId());
+        assertThat(lines.get(0).items()).extracting(OrderResponse.Item::sku).containsExactly("SKU-1", "SKU-2");
+        assertThat(lines.get(0).total()).isEqualByComparingTo("25.50");
+        assertThat(lines.get(0).createdAt()).isEqualTo(T0);
+        assertThat(lines.get(1).items()).singleElement().satisfies(i -> assertThat(i.lineTotal()).isEqualByComparingTo("6.00"));
+    }
+
+    @Test
+    void csv_writesOneRowPerItem_andAppliesStatusAndDateFilters() throws Exception {
+        save("cust-x", T0, OrderStatus.SHIPPED, item("SKU-1", "Mouse, wireless", 2, "10.25"));
+        Order inRange = save("cust-x", T0.plusSeconds(60), OrderStatus.SHIPPED,
+                item("SKU-2", "Pad \"XL\"", 1, "5.00"), item("SKU-3", "Cable", 3, "2.00"));
+        save("cust-x", T0.plusSeconds(90), OrderStatus.PENDING, item("SKU-4", "Hub", 1, "20.00"));
+        save("cust-x", T0.plusSeconds(120), OrderStatus.SHIPPED, item("SKU-5", "Dock", 1, "99.00"));
+
+        String csv = export(List.of(OrderStatus.SHIPPED), T0.plusSeconds(1), T0.plusSeconds(120), ExportFormat.CSV, 1);
+
+        List<String> rows = csv.lines().toList();
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).isEqualTo(
+                "order_id,customer_id,status,order_total,created_at,updated_at,sku,name,quantity,unit_price,line_total");
+        String orderColumns = inRange.getId() + ",cust-x,SHIPPED,11.00,2025-01-01T00:01:00Z,";
+        assertThat(rows.get(1)).startsWith(orderColumns).endsWith(",SKU-2,\"Pad \"\"XL\"\"\",1,5.00,5.00");
+        assertThat(rows.get(2)).startsWith(orderColumns).endsWith(",SKU-3,Cable,3,2.00,6.00");
+    }
+
+    @Test
+    void emptyDateRange_isRejected() {
+        assertThatThrownBy(() -> service.export("cust-x", null, T0, T0, ExportFormat.CSV, new ByteArrayOutputStream()))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
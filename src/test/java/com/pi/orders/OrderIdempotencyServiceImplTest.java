@@ -0,0 +1,238 @@
+package com.pi.orders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pi.orders.domain.IdempotencyKey;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.exception.BadRequestException;
+import com.pi.orders.repo.IdempotencyKeyRepository;
+import com.pi.orders.service.IdempotentCreate;
+import com.pi.orders.service.OrderService;
+import com.pi.orders.service.impl.OrderIdempotencyServiceImpl;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.OrderItemRequest;
+import com.pi.orders.web.dto.OrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderIdempotencyServiceImplTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private IdempotencyKeyRepository keyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private OrderIdempotencyServiceImpl service;
+
+    private final CreateOrderRequest request = new CreateOrderRequest("cust-1",
+            List.of(new OrderItemRequest("SKU-1", "Mouse", 1, new BigDecimal("499.99"))));
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        service = new OrderIdempotencyServiceImpl(orderService, keyRepository, transactionManager, objectMapper,
+                new SimpleMeterRegistry(), Duration.ofHours(24), 100);
+    }
+
+    private static OrderResponse order(long id) {
+        return order(id, OrderStatus.PENDING);
+    }
+
+    private static OrderResponse order(long id, OrderStatus status) {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        return new OrderResponse(id, "cust-1",
+                List.of(new OrderResponse.Item("SKU-1", "Mouse", 1, new BigDecimal("499.99"), new BigDecimal("499.99"))),
+                status, new BigDecimal("499.99"), t, t);
+    }
+
+    private IdempotencyKey stored(String key, OrderResponse response) throws Exception {
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setKey(key);
+        stored.setOrderId(response.id());
+        // as stored by the first create, possibly on another node
+        stored.setRequestHash(HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(new ObjectMapper().writeValueAsBytes(request))));
+        stored.setResponseBody(objectMapper.writeValueAsString(response));
+        return stored;
+    }
+
+    @Test
+    void firstRequestCreates_andStoresTheKey_repeatIsAnsweredFromMemory() throws Exception {
+        when(keyRepository.findById("k-1")).thenReturn(Optional.empty());
+        when(orderService.createOrder(request)).thenReturn(order(42L));
+
+        IdempotentCreate first = service.createOrder("k-1", request);
+        IdempotentCreate repeat = service.createOrder("k-1", request);
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(repeat.replayed()).isTrue();
+        assertThat(repeat.order()).isEqualTo(first.order());
+        verify(orderService, times(1)).createOrder(request);
+        verify(keyRepository).insert(eq("k-1"), anyString(), eq(42L), any(Instant.class),
+                eq(objectMapper.writeValueAsString(first.order())));
+        verify(keyRepository, times(1)).findById("k-1");
+    }
+
+    @Test
+    void keyFoundInTheStore_replaysTheStoredResponse_withoutCreating() throws Exception {
+        when(keyRepository.findById("k-2")).thenReturn(Optional.of(stored("k-2", order(7L))));
+
+        IdempotentCreate result = service.createOrder("k-2", request);
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.order()).isEqualTo(order(7L));
+        verify(orderService, never()).createOrder(any());
+        verify(orderService, never()).getOrderDetails(anyLong());
+    }
+
+    @Test
+    void replayFromTheStore_matchesAReplayFromMemory_afterTheOrderMoved() throws Exception {
+        when(keyRepository.findById("k-7")).thenReturn(Optional.empty());
+        when(orderService.createOrder(request)).thenReturn(order(42L));
+        IdempotentCreate first = service.createOrder("k-7", request);
+        // the order has since moved on
+        lenient().when(orderService.getOrderDetails(42L)).thenReturn(order(42L, OrderStatus.SHIPPED));
+
+        // another node, or this one after a restart, with only the table to go by
+        OrderIdempotencyServiceImpl otherNode = new OrderIdempotencyServiceImpl(orderService, keyRepository,
+                transactionManager, objectMapper, new SimpleMeterRegistry(), Duration.ofHours(24), 100);
+        when(keyRepository.findById("k-7")).thenReturn(Optional.of(stored("k-7", first.order())));
+
+        assertThat(service.createOrder("k-7", request).order()).isEqualTo(first.order());
+        assertThat(otherNode.createOrder("k-7", request).order()).isEqualTo(first.order());
+    }
+
+    @Test
+    void keyStoredWithoutAResponse_replaysTheCurrentOrder() throws Exception {
+        IdempotencyKey stored = stored("k-8", order(9L));
+        // stored before the response was kept
+        stored.setResponseBody(null);
+        when(keyRepository.findById("k-8")).thenReturn(Optional.of(stored));
+        when(orderService.getOrderDetails(9L)).thenReturn(order(9L, OrderStatus.SHIPPED));
+
+        IdempotentCreate result = service.createOrder("k-8", request);
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.order().status()).isEqualTo(OrderStatus.SHIPPED);
+    }
+
+    @Test
+    void keyReusedForADifferentBody_isRejectedWith422() {
+        when(keyRepository.findById("k-3")).thenReturn(Optional.empty());
+        when(orderService.createOrder(request)).thenReturn(order(42L));
+        service.createOrder("k-3", request);
+
+        CreateOrderRequest other = new CreateOrderRequest("cust-1",
+                List.of(new OrderItemRequest("SKU-2", "Pad", 2, new BigDecimal("5.00"))));
+
+        assertThatThrownBy(() -> service.createOrder("k-3", other))
+                .isInstanceOfSatisfying(BadRequestException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        verify(orderService, never()).createOrder(other);
+    }
+
+    @Test
+    void concurrentDuplicates_areCoalescedIntoOneCreate() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(keyRepository.findById("k-4")).thenReturn(Optional.empty());
+        when(orderService.createOrder(request)).thenAnswer(inv -> {
+            creating.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return order(42L);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<IdempotentCreate> first = pool.submit(() -> service.createOrder("k-4", request));
+            assertThat(creating.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<IdempotentCreate>> duplicates = List.of(
+                    pool.submit(() -> service.createOrder("k-4", request)),
+                    pool.submit(() -> service.createOrder("k-4", request)));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+            for (Future<IdempotentCreate> duplicate : duplicates) {
+                IdempotentCreate result = duplicate.get(5, TimeUnit.SECONDS);
+                assertThat(result.replayed()).isTrue();
+                assertThat(result.order().id()).isEqualTo(42L);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(orderService, times(1)).createOrder(request);
+    }
+
+    @Test
+    void keyTakenByAnotherNode_rollsBackAndReplaysTheWinner() throws Exception {
+        when(orderService.createOrder(request)).thenReturn(order(42L));
+        IdempotencyKey winner = stored("k-5", order(8L));
+        when(keyRepository.findById("k-5")).thenReturn(Optional.empty()).thenAnswer(inv -> Optional.of(winner));
+        when(keyRepository.insert(eq("k-5"), anyString(), anyLong(), any(Instant.class), anyString()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        IdempotentCreate result = service.createOrder("k-5", request);
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.order()).isEqualTo(order(8L));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void failedCreate_isNotRemembered_soARetryRunsAgain() {
+        when(keyRepository.findById("k-6")).thenReturn(Optional.empty());
+        when(orderService.createOrder(request))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(order(42L));
+
+        assertThatThrownBy(() -> service.createOrder("k-6", request)).isInstanceOf(IllegalStateException.class);
+        assertThat(service.createOrder("k-6", request).replayed()).isFalse();
+        verify(orderService, times(2)).createOrder(request);
+    }
+
+    @Test
+    void overlongKey_isRejected() {
+        assertThatThrownBy(() -> service.createOrder("x".repeat(256), request))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
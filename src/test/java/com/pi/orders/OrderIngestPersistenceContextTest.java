@@ -0,0 +1,96 @@
+package com.pi.orders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.IngestSummary;
+import com.pi.orders.service.impl.OrderIngestServiceImpl;
+import com.pi.orders.service.impl.OrderOutbox;
+import com.pi.orders.service.impl.OrderPromotionScheduler;
+import com.pi.orders.service.impl.OrderSummaryProjector;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validation;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Bulk ingest against the embedded H2 with an EntityManager held open for the whole upload,
+ * as open-in-view would: the persistence context must not accumulate the batches.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderIngestPersistenceContextTest {
+
+    private static final String LINE = "{\"customerId\":\"ingest-pc\",\"items\":[{\"sku\":\"SKU-1\",\"name\":\"Mouse\",\"quantity\":1,\"unitPrice\":9.99}]}\n";
+
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE customer_id = 'ingest-pc')");
+        jdbc.update("DELETE FROM orders WHERE customer_id = 'ingest-pc'");
+    }
+
+    private static int managedEntities(EntityManager entityManager) {
+        return entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+
+    @Test
+    void ingest_doesNotGrowAnOpenPersistenceContext_acrossBatches() throws Exception {
+        EntityManager shared = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        OrderSummaryProjector projector = mock(OrderSummaryProjector.class);
+        // called inside each batch transaction, after the batch is flushed
+        List<Integer> managedPerBatch = new ArrayList<>();
+        doAnswer(inv -> {
+            managedPerBatch.add(managedEntities(shared));
+            return null;
+        }).when(projector).recordCreated(anyCollection());
+        OrderIngestServiceImpl service = new OrderIngestServiceImpl(orderRepository, mock(OrderOutbox.class), projector,
+                mock(OrderPromotionScheduler.class), shared, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 2, 1_048_576);
+
+        EntityManager requestScoped = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(requestScoped));
+        IngestSummary summary;
+        try {
+            summary = service.ingest(new ByteArrayInputStream(LINE.repeat(6).getBytes(StandardCharsets.UTF_8)),
+                    new ByteArrayOutputStream());
+            assertThat(managedEntities(requestScoped)).isZero();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestScoped.close();
+        }
+
+        assertThat(summary.created()).isEqualTo(6);
+        // two orders with one item each per batch, never the batches before it
+        assertThat(managedPerBatch).containsExactly(4, 4, 4);
+    }
+}
@@ -0,0 +1,179 @@
+package com.pi.orders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pi.orders.domain.Order;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.IngestSummary;
+import com.pi.orders.service.impl.OrderIngestServiceImpl;
+import com.pi.orders.service.impl.OrderOutbox;
+import com.pi.orders.service.impl.OrderPromotionScheduler;
+import com.pi.orders.service.impl.OrderSummaryProjector;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderIngestServiceImplTest {
+
+    private static final String VALID = "{\"customerId\":\"cust-1\",\"items\":[{\"sku\":\"SKU-1\",\"name\":\"Mouse\",\"quantity\":1,\"unitPrice\":499.99}]}";
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderOutbox outbox;
+
+    @Mock
+    private OrderSummaryProjector summaryProjector;
+
+    @Mock
+    private OrderPromotionScheduler promotionScheduler;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderIngestServiceImpl service;
+
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        service = new OrderIngestServiceImpl(orderRepository, outbox, summaryProjector, promotionScheduler, entityManager,
+                new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 2, 256);
+    }
+
+    private String ingest(String body, IngestSummary[] summary) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary[0] = service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void ingest_writesInBatches_andReportsIdsPerLine() throws Exception {
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Order> orders = inv.getArgument(0);
+            orders.forEach(o -> o.setId(ids.incrementAndGet()));
+            return orders;
+        });
+
+        IngestSummary[] summary = new IngestSummary[1];
+        String out = ingest(VALID + "\n" + VALID + "\n\n" + VALID + "\n", summary);
+
+        assertThat(out.lines()).containsExactly(
+                "{\"line\":1,\"id\":101}",
+                "{\"line\":2,\"id\":102}",
+                "{\"line\":4,\"id\":103}");
+        assertThat(summary[0].created()).isEqualTo(3);
+        assertThat(summary[0].rejected()).isZero();
+        // batch size 2 -> two transactions, each with one outbox INSERT ... SELECT
+        verify(orderRepository, times(2)).saveAll(anyList());
+        verify(outbox).recordCreated(List.of(101L, 102L));
+        verify(outbox).recordCreated(List.of(103L));
+        verify(summaryProjector).recordCreated(List.of(101L, 102L));
+        verify(summaryProjector).recordCreated(List.of(103L));
+    }
+
+    @Test
+    void ingest_rejectsMalformedAndInvalidLines_withoutStoppingTheStream() throws Exception {
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Order> orders = inv.getArgument(0);
+            orders.forEach(o -> o.setId(ids.incrementAndGet()));
+            return orders;
+        });
+
+        IngestSummary[] summary = new IngestSummary[1];
+        String out = ingest("{not json\n"
+                + "{\"customerId\":\"\",\"items\":[]}\n"
+                + VALID + "\n", summary);
+
+        List<String> lines = out.lines().toList();
+        assertThat(lines.get(0)).startsWith("{\"line\":1,\"error\":\"MALFORMED_JSON\"");
+        assertThat(lines.get(1)).startsWith("{\"line\":2,\"error\":\"VALIDATION_FAILED\"")
+                .contains("customerId").contains("items");
+        assertThat(lines.get(2)).isEqualTo("{\"line\":3,\"id\":101}");
+        assertThat(summary[0].lines()).isEqualTo(3);
+        assertThat(summary[0].created()).isEqualTo(1);
+        assertThat(summary[0].rejected()).isEqualTo(2);
+    }
+
+    @Test
+    void ingest_fallsBackToPerRecordTransactions_whenBatchFails() throws Exception {
+        when(orderRepository.saveAll(anyList())).thenThrow(new RuntimeException("constraint"));
+        when(orderRepository.save(any(Order.class)))
+                .thenAnswer(inv -> {
+                    Order o = inv.getArgument(0);
+                    o.setId(ids.incrementAndGet());
+                    return o;
+                })
+                .thenThrow(new RuntimeException("bad row"));
+
+        IngestSummary[] summary = new IngestSummary[1];
+        String out = ingest(VALID + "\n" + VALID + "\n", summary);
+
+        assertThat(out.lines()).containsExactly(
+                "{\"line\":1,\"id\":101}",
+                "{\"line\":2,\"error\":\"ERROR_CREATE_ORDER\",\"details\":\"Error while creating order\"}");
+        assertThat(summary[0].created()).isEqualTo(1);
+        assertThat(summary[0].rejected()).isEqualTo(1);
+        verify(outbox, times(1)).recordCreated(any(Order.class));
+        verify(summaryProjector).recordCreated(List.of(101L));
+    }
+
+    @Test
+    void ingest_rejectsAnOverlongRecord_andGoesOnAfterItsNewline() throws Exception {
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Order> orders = inv.getArgument(0);
+            orders.forEach(o -> o.setId(ids.incrementAndGet()));
+            return orders;
+        });
+        // over the 256-byte limit of this test's service, and many read buffers long
+        String huge = "{\"customerId\":\"" + "x".repeat(100_000) + "\",\"items\":[]}";
+
+        IngestSummary[] summary = new IngestSummary[1];
+        String out = ingest(VALID + "\n" + huge + "\n" + VALID + "\n", summary);
+
+        assertThat(out.lines()).containsExactly(
+                "{\"line\":2,\"error\":\"LINE_TOO_LONG\",\"details\":\"record of " + huge.length()
+                        + " bytes is over the limit of 256\"}",
+                "{\"line\":1,\"id\":101}",
+                "{\"line\":3,\"id\":102}");
+        assertThat(summary[0].lines()).isEqualTo(3);
+        assertThat(summary[0].rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void ingest_bodyWithoutNewlines_isOneOverlongRecord() throws Exception {
+        IngestSummary[] summary = new IngestSummary[1];
+        String out = ingest((VALID + " ").repeat(1_000), summary);
+
+        assertThat(out.lines()).singleElement().asString().startsWith("{\"line\":1,\"error\":\"LINE_TOO_LONG\"");
+        assertThat(summary[0].created()).isZero();
+        verify(orderRepository, never()).saveAll(anyList());
+    }
+}
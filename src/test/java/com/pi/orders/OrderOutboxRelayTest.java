@@ -0,0 +1,97 @@
+package com.pi.orders;
+
+import com.pi.orders.domain.OrderEvent;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderEventRepository;
+import com.pi.orders.service.OrderEventPublisher;
+import com.pi.orders.service.OrderOutboxRelay;
+import com.pi.orders.service.OrderStatusChanged;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderOutboxRelayTest {
+
+    @Mock
+    private OrderEventRepository eventRepository;
+
+    @Mock
+    private OrderEventPublisher publisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OrderOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        relay = new OrderOutboxRelay(eventRepository, publisher, transactionManager, registry, 2, 10);
+    }
+
+    private static List<OrderEvent> events(long... ids) {
+        return LongStream.of(ids).mapToObj(id -> {
+            OrderEvent e = new OrderEvent();
+            e.setId(id);
+            e.setOrderId(100 + id);
+            e.setCustomerId("cust-1");
+            e.setToStatus(OrderStatus.PENDING);
+            e.setOccurredAt(Instant.parse("2025-01-01T00:00:00Z"));
+            return e;
+        }).toList();
+    }
+
+    @Test
+    void drain_publishesOldestFirst_thenDeletesExactlyThePublishedRows() throws Exception {
+        when(eventRepository.findOldest(PageRequest.of(0, 2)))
+                .thenReturn(events(1, 2))
+                .thenReturn(events(3));
+
+        int published = relay.drain();
+
+        assertThat(published).isEqualTo(3);
+        InOrder inOrder = inOrder(publisher, eventRepository);
+        inOrder.verify(publisher).publish(List.of(OrderStatusChanged.of(events(1).get(0)), OrderStatusChanged.of(events(2).get(0))));
+        inOrder.verify(eventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(publisher).publish(List.of(OrderStatusChanged.of(events(3).get(0))));
+        inOrder.verify(eventRepository).deleteAllByIdInBatch(List.of(3L));
+        assertThat(registry.get("orders.outbox.published").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void drain_keepsRowsForRetry_whenPublishFails() throws Exception {
+        when(eventRepository.findOldest(PageRequest.of(0, 2))).thenReturn(events(1, 2));
+        doThrow(new IllegalStateException("broker down")).when(publisher).publish(anyList());
+
+        int published = relay.drain();
+
+        assertThat(published).isZero();
+        verify(eventRepository, never()).deleteAllByIdInBatch(anyList());
+        assertThat(registry.get("orders.outbox.publish.failures").counter().count()).isEqualTo(1);
+    }
+}
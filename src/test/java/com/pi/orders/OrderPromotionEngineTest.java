@@ -0,0 +1,117 @@
+package com.pi.orders;
+
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.PromotionResult;
+import com.pi.orders.service.impl.OrderCacheInvalidator;
+import com.pi.orders.service.impl.OrderOutbox;
+import com.pi.orders.service.impl.OrderPromotionEngine;
+import com.pi.orders.service.impl.OrderSummaryProjector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderPromotionEngineTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private OrderOutbox outbox;
+
+    @Mock
+    private OrderSummaryProjector summaryProjector;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderPromotionEngine engine;
+
+    private final Instant cutoff = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        engine = new OrderPromotionEngine(orderRepository, cacheInvalidator, outbox, summaryProjector, transactionManager, 2);
+    }
+
+    @Test
+    void promote_walksKeysetChunks_eachInItsOwnTransaction() {
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, 0L, cutoff, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1L, 3L));
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, 3L, cutoff, PageRequest.of(0, 2)))
+                .thenReturn(List.of(7L));
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, 7L, cutoff, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+        when(orderRepository.updateStatusInRange(eq(OrderStatus.PENDING), eq(OrderStatus.PROCESSING),
+                eq(1L), eq(3L), eq(cutoff), any(Instant.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(orderRepository.updateStatusInRange(eq(OrderStatus.PENDING), eq(OrderStatus.PROCESSING),
+                eq(7L), eq(7L), eq(cutoff), any(Instant.class))).thenReturn(List.of(7L));
+
+        PromotionResult result = engine.promote(OrderStatus.PENDING, OrderStatus.PROCESSING, cutoff);
+
+        assertThat(result.promoted()).isEqualTo(4);
+        assertThat(result.chunks()).extracting(PromotionResult.Chunk::firstId).containsExactly(1L, 7L);
+        assertThat(result.chunks()).extracting(PromotionResult.Chunk::lastId).containsExactly(3L, 7L);
+        // events, summary and cache follow the ids the UPDATE changed, including 2, which was
+        // committed into the range after the id read
+        verify(outbox).recordStatusChanges(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(1L, 2L, 3L));
+        verify(summaryProjector).recordTransition(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(1L, 2L, 3L));
+        verify(cacheInvalidator).evictAll(List.of(1L, 2L, 3L));
+        verify(outbox).recordStatusChanges(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(7L));
+        verify(cacheInvalidator).evictAll(List.of(7L));
+        // two chunks with work + the final empty probe
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void promote_returnsEmptyResult_whenNothingPending() {
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, 0L, cutoff, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
+
+        PromotionResult result = engine.promote(OrderStatus.PENDING, OrderStatus.PROCESSING, cutoff);
+
+        assertThat(result.promoted()).isZero();
+        assertThat(result.chunks()).isEmpty();
+        verify(orderRepository, never()).updateStatusInRange(any(), any(), anyLong(), anyLong(), any(), any());
+        verifyNoInteractions(outbox, summaryProjector);
+    }
+
+    @Test
+    void promoteIds_updatesTheGivenOrders_andRecordsTheirEvents_inOneTransaction() {
+        when(orderRepository.updateStatusForIds(eq(OrderStatus.PENDING), eq(OrderStatus.PROCESSING),
+                eq(List.of(4L, 9L)), any(Instant.class))).thenReturn(List.of(9L));
+
+        int promoted = engine.promoteIds(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(4L, 9L));
+
+        assertThat(promoted).isEqualTo(1);
+        // 4 was no longer PENDING: only the changed order gets an event, a summary delta and an eviction
+        verify(outbox).recordStatusChanges(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(9L));
+        verify(summaryProjector).recordTransition(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(9L));
+        verify(cacheInvalidator).evictAll(List.of(9L));
+        verify(transactionManager, times(1)).commit(any());
+    }
+}
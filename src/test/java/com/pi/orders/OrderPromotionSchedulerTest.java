@@ -0,0 +1,102 @@
+package com.pi.orders;
+
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.repo.PendingOrder;
+import com.pi.orders.service.impl.OrderPromotionEngine;
+import com.pi.orders.service.impl.OrderPromotionScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderPromotionSchedulerTest {
+
+    @Mock
+    private OrderPromotionEngine promotionEngine;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OrderPromotionScheduler scheduler;
+
+    private OrderPromotionScheduler start(Duration hold) {
+        scheduler = new OrderPromotionScheduler(promotionEngine, orderRepository, registry, hold, true, 10, 100);
+        scheduler.start();
+        return scheduler;
+    }
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) scheduler.stop();
+    }
+
+    @Test
+    void start_rebuildsFromDatabase_andPromotesOverdueOrdersInOneBatch() {
+        Instant longAgo = Instant.now().minus(Duration.ofHours(1));
+        when(orderRepository.findPendingAfter(OrderStatus.PENDING, 0L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(new PendingOrder(3L, longAgo), new PendingOrder(8L, longAgo)));
+        when(orderRepository.findPendingAfter(OrderStatus.PENDING, 8L, PageRequest.of(0, 10)))
+                .thenReturn(List.of());
+        when(promotionEngine.promoteIds(eq(OrderStatus.PENDING), eq(OrderStatus.PROCESSING), anyList())).thenReturn(2);
+
+        start(Duration.ofMinutes(1));
+
+        verify(promotionEngine, timeout(2_000)).promoteIds(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(3L, 8L));
+    }
+
+    @Test
+    void schedule_promotesWhenDue_notBefore() {
+        when(orderRepository.findPendingAfter(eq(OrderStatus.PENDING), anyLong(), any())).thenReturn(List.of());
+        start(Duration.ofMillis(300));
+
+        scheduler.schedule(42L, Instant.now());
+
+        verify(promotionEngine, after(100).never()).promoteIds(any(), any(), anyList());
+        verify(promotionEngine, timeout(2_000)).promoteIds(OrderStatus.PENDING, OrderStatus.PROCESSING, List.of(42L));
+    }
+
+    @Test
+    void schedule_dropsBeyondCapacity_andLeavesThemToThePoller() {
+        scheduler = new OrderPromotionScheduler(promotionEngine, orderRepository, registry, Duration.ofHours(1), true, 10, 2);
+        // not started: nothing is consumed
+
+        scheduler.schedule(1L, Instant.now());
+        scheduler.schedule(2L, Instant.now());
+        scheduler.schedule(3L, Instant.now());
+
+        assertThat(registry.get("orders.jobs.promote.scheduled.tracked").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("orders.jobs.promote.scheduled.dropped").counter().count()).isEqualTo(1);
+        verify(promotionEngine, never()).promoteIds(any(), any(), anyList());
+    }
+
+    @Test
+    void dueCutoff_isNowMinusHold() {
+        scheduler = new OrderPromotionScheduler(promotionEngine, orderRepository, registry, Duration.ofMinutes(1), false, 10, 2);
+
+        Instant cutoff = scheduler.dueCutoff();
+
+        assertThat(cutoff).isBetween(Instant.now().minusSeconds(61), Instant.now().minusSeconds(59));
+    }
+}
@@ -0,0 +1,518 @@
+package com.pi.orders;
+
+import com.pi.orders.domain.IdempotencyKey;
+import com.pi.orders.domain.Order;
+import com.pi.orders.domain.OrderEvent;
+import com.pi.orders.domain.OrderItem;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.lib.OrderProcessingLibrary;
+import com.pi.orders.repo.IdempotencyKeyRepository;
+import com.pi.orders.repo.OrderEventRepository;
+import com.pi.orders.repo.OrderItemRepository;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.repo.PendingOrder;
+import com.pi.orders.service.impl.OrderOutbox;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.OrderItemRequest;
+import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Repository-level checks against an embedded H2, counting JDBC statements through
+ * Hibernate statistics so access-path regressions (lost batching, N+1) fail the build.
+ * <p>
+ * Tests annotated with {@code @EnabledIfSystemProperty(named = "bench")} are micro
+ * benchmarks and only run with {@code mvn test -Dbench=true -Dtest=OrderRepositoryTest}.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Log4j2
+public class OrderRepositoryTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderItemRepository orderItemRepository;
+    @Autowired
+    OrderEventRepository orderEventRepository;
+    @Autowired
+    IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbc;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /* ---------- helpers ---------- */
+
+    private Order newOrder(String customerId, int itemCount) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setSku("SKU-" + i);
+            item.setName("Item " + i);
+            item.setQuantity(1 + i % 3);
+            item.setUnitPrice(new BigDecimal("9.99"));
+            item.setLineTotal(item.computeLineTotal());
+            item.setOrder(order);
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotal(order.computeTotal());
+        return order;
+    }
+
+    /* ---------- inserts ---------- */
+
+    @Test
+    void save_orderWith50Items_isWrittenInBatchedStatements() {
+        orderRepository.save(newOrder("cust-1", 50));
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(51);
+        // one batched INSERT per table plus at most a couple of pooled sequence calls per table,
+        // instead of 51 individual IDENTITY round trips
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void summaryView_isOneProjectionQuery_withoutItemsOrEntities() {
+        for (int i = 0; i < 25; i++) orderRepository.save(newOrder("cust-view", 3));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OrderSummaryResponse> first = orderRepository.findFirstSummaryKeysetPage("cust-view", null, PageRequest.of(0, 21));
+        OrderSummaryResponse last = first.get(first.size() - 1);
+        List<OrderSummaryResponse> next = orderRepository.findSummaryKeysetPageAfter("cust-view", List.of(OrderStatus.PENDING),
+                last.createdAt(), last.id(), PageRequest.of(0, 21));
+
+        assertThat(first).hasSize(21).allSatisfy(r -> assertThat(r.total()).isPositive());
+        assertThat(next).hasSize(4).extracting(OrderSummaryResponse::id).doesNotContainAnyElementsOf(
+                first.stream().map(OrderSummaryResponse::id).toList());
+        // one select per page, nothing hydrated
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        statistics.clear();
+        Page<OrderSummaryResponse> page = orderRepository.findSummariesByCustomerId("cust-view", null,
+                PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "createdAt")));
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        // page select + count
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    /* ---------- orders by SKU ---------- */
+
+    @Test
+    void skuLookup_isOneProjectionQueryPerPage_withEachOrderOnce() {
+        List<Long> hits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Order order = newOrder("cust-sku-" + i, 3);
+            order.getItems().get(1).setSku("RECALL-1");
+            if (i == 0) order.getItems().get(2).setSku("RECALL-1"); // on two lines of one order
+            hits.add(orderRepository.save(order).getId());
+        }
+        orderRepository.save(newOrder("cust-sku-other", 3));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OrderSummaryResponse> first = orderRepository.findFirstSummaryPageBySku("RECALL-1", null, null, null,
+                PageRequest.of(0, 3));
+        OrderSummaryResponse last = first.get(first.size() - 1);
+        List<OrderSummaryResponse> next = orderRepository.findSummaryPageBySkuAfter("RECALL-1", List.of(OrderStatus.PENDING),
+                null, null, last.createdAt(), last.id(), PageRequest.of(0, 3));
+
+        assertThat(first).hasSize(3);
+        assertThat(next).hasSize(2);
+        assertThat(Stream.concat(first.stream(), next.stream()).map(OrderSummaryResponse::id))
+                .containsExactlyInAnyOrderElementsOf(hits);
+        // one select per page, nothing hydrated
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        Instant now = Instant.now();
+        assertThat(orderRepository.findFirstSummaryPageBySku("RECALL-1", null, now.minusSeconds(3600), now.plusSeconds(60),
+                PageRequest.of(0, 10))).hasSize(5);
+        assertThat(orderRepository.findFirstSummaryPageBySku("RECALL-1", null, now.plusSeconds(60), null,
+                PageRequest.of(0, 10))).isEmpty();
+        assertThat(orderRepository.findFirstSummaryPageBySku("RECALL-1", List.of(OrderStatus.CANCELED), null, null,
+                PageRequest.of(0, 10))).isEmpty();
+    }
+
+    /* ---------- oldest pending ---------- */
+
+    @Test
+    void oldestInStatus_isTheFirstEntryOfTheStatusCreatedIndex() {
+        // ids and creation times in opposite orders, as pooled blocks on several nodes leave them
+        jdbc.update("""
+                INSERT INTO orders (id, customer_id, status, created_at, updated_at, total)
+                SELECT 8000000 + X, 'cust-oldest', CASE MOD(X, 4) WHEN 0 THEN 'SHIPPED' ELSE 'PENDING' END,
+                       DATEADD('SECOND', -X, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00+00'),
+                       DATEADD('SECOND', -X, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00+00'), 0
+                FROM SYSTEM_RANGE(1, 400)""");
+
+        // X = 400 is SHIPPED: the oldest PENDING is X = 399
+        assertThat(orderRepository.findCreatedAtOfOldest(OrderStatus.PENDING, PageRequest.of(0, 1)))
+                .containsExactly(Instant.parse("2025-01-01T00:00:00Z").minusSeconds(399));
+        // the SQL of findCreatedAtOfOldest: one index entry read, the PENDING rows are not sorted
+        String plan = jdbc.queryForObject("""
+                EXPLAIN ANALYZE SELECT created_at FROM orders WHERE status = 'PENDING'
+                ORDER BY status, created_at FETCH FIRST 1 ROWS ONLY""", String.class);
+        assertThat(plan).containsIgnoringCase("idx_orders_status_created")
+                .contains("scanCount: 1")
+                .contains("index sorted");
+    }
+
+    /* ---------- conditional GET ---------- */
+
+    @Test
+    void lastModifiedLookup_isOneStatement_withoutItems() {
+        Order order = orderRepository.save(newOrder("cust-etag", 5));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Instant updatedAt = orderRepository.findUpdatedAtById(order.getId()).orElseThrow();
+
+        assertThat(updatedAt).isCloseTo(order.getUpdatedAt(), within(1, ChronoUnit.MILLIS));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(orderRepository.findUpdatedAtById(999_999L)).isEmpty();
+    }
+
+    /* ---------- list paths ---------- */
+
+    @Test
+    void offsetPage_loadsItemsOfAllOrdersInOneBatch() {
+        for (int i = 0; i < 25; i++) orderRepository.save(newOrder("cust-list", 3));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        Page<OrderResponse> page = orderRepository.findByCustomerIdAndStatusIn("cust-list",
+                        List.of(OrderStatus.PENDING), PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")))
+                .map(OrderProcessingLibrary::toResponse);
+
+        assertThat(page.getContent()).hasSize(20).allSatisfy(r -> assertThat(r.items()).hasSize(3));
+        // page select + count + one batched item select (was 1 + 1 + 20)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void keysetPage_loadsItemsOfAllOrdersInOneBatch() {
+        for (int i = 0; i < 25; i++) orderRepository.save(newOrder("cust-keyset", 2));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OrderResponse> page = orderRepository.findFirstKeysetPage("cust-keyset", null, PageRequest.of(0, 21))
+                .stream().map(OrderProcessingLibrary::toResponse).toList();
+
+        assertThat(page).hasSize(21).allSatisfy(r -> assertThat(r.items()).hasSize(2));
+        // page select + one batched item select, no count query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void schemaV10_movesSequencesPastRowsWrittenWithoutThem() throws Exception {
+        long orderId = jdbc.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ORDERS_SEQ'", Long.class) + 10;
+        long itemId = jdbc.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ORDER_ITEMS_SEQ'", Long.class) + 10;
+        // rows as a pre-V2 IDENTITY table left them: ids the sequences have not handed out yet
+        jdbc.update("INSERT INTO orders (id, customer_id, status, created_at, updated_at, total) VALUES (?, 'cust-legacy', 'PENDING', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 9.99)", orderId);
+        jdbc.update("INSERT INTO order_items (id, sku, name, quantity, unit_price, line_total, order_id) VALUES (?, 'SKU-L', 'Legacy', 1, 9.99, 9.99, ?)", itemId, orderId);
+
+        List<String> restarts = Arrays.stream(new ClassPathResource("schema.sql")
+                        .getContentAsString(StandardCharsets.UTF_8).split(";"))
+                .filter(sql -> sql.contains("RESTART WITH"))
+                .toList();
+        assertThat(restarts).hasSize(2);
+        restarts.forEach(jdbc::execute);
+        long orderBase = jdbc.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ORDERS_SEQ'", Long.class);
+        // schema.sql runs on every start: a second run leaves a sequence that is ahead alone
+        restarts.forEach(jdbc::execute);
+        assertThat(jdbc.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ORDERS_SEQ'", Long.class))
+                .isEqualTo(orderBase);
+
+        // the next pooled blocks start above the legacy rows
+        assertThat(jdbc.queryForObject("VALUES NEXT VALUE FOR orders_seq", Long.class) - 49).isGreaterThan(orderId);
+        assertThat(jdbc.queryForObject("VALUES NEXT VALUE FOR order_items_seq", Long.class) - 49).isGreaterThan(itemId);
+        for (int i = 0; i < 3; i++) {
+            orderRepository.save(newOrder("cust-after-v10", 60));
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void idempotencyKey_keepsTheFirstResponse() {
+        String body = "{\"id\":7,\"status\":\"PENDING\",\"items\":[" + "{\"sku\":\"SKU-1\"},".repeat(400) + "{}]}";
+        idempotencyKeyRepository.insert("repo-k-1", "h".repeat(64), 7L, Instant.now().truncatedTo(ChronoUnit.MICROS), body);
+        entityManager.clear();
+
+        IdempotencyKey stored = idempotencyKeyRepository.findById("repo-k-1").orElseThrow();
+        assertThat(stored.getResponseBody()).isEqualTo(body);
+        assertThat(stored.getOrderId()).isEqualTo(7L);
+    }
+
+    /* ---------- persisted totals ---------- */
+
+    @Test
+    void persistedTotals_areComputedOnce_andPassTheConsistencyCheck() {
+        Order saved = orderRepository.save(OrderProcessingLibrary.toOrder(new CreateOrderRequest("cust-totals", List.of(
+                new OrderItemRequest("SKU-1", "Mouse", 2, new BigDecimal("10.25")),
+                new OrderItemRequest("SKU-2", "Pad", 1, new BigDecimal("5.00"))))));
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderResponse response = OrderProcessingLibrary.toResponse(orderRepository.findById(saved.getId()).orElseThrow());
+        assertThat(response.total()).isEqualByComparingTo("25.50");
+        assertThat(response.items()).extracting(OrderResponse.Item::lineTotal)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyInAnyOrder(new BigDecimal("20.50"), new BigDecimal("5.00"));
+        assertThat(orderRepository.findInconsistentTotals(PageRequest.of(0, 10))).isEmpty();
+        assertThat(orderItemRepository.findInconsistentLineTotals(PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void consistencyCheck_reportsDriftedTotals() {
+        Order saved = orderRepository.save(newOrder("cust-drift", 2));
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE orders SET total = total + 1 WHERE id = " + saved.getId())
+                .executeUpdate();
+
+        assertThat(orderRepository.findInconsistentTotals(PageRequest.of(0, 10))).containsExactly(saved.getId());
+    }
+
+    /* ---------- status transitions ---------- */
+
+    @Test
+    void conditionalCancel_isOneStatement_andLosesToAConcurrentPromotion() {
+        Order order = orderRepository.save(newOrder("cust-cas", 1));
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(order.getVersion()).isZero();
+
+        // promotion wins the race
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        assertThat(orderRepository.updateStatusInRange(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                order.getId(), order.getId(), now.plusSeconds(1), now)).containsExactly(order.getId());
+        statistics.clear();
+
+        int cancelled = orderRepository.updateStatusIfCurrent(order.getId(), OrderStatus.PENDING, OrderStatus.CANCELED, now);
+
+        assertThat(cancelled).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Order reloaded = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(OrderStatus.PROCESSING);
+        assertThat(reloaded.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void conditionalCancel_transitionsPendingOrder_andBumpsVersion() {
+        Order order = orderRepository.save(newOrder("cust-cas", 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        assertThat(orderRepository.updateStatusIfCurrent(order.getId(), OrderStatus.PENDING, OrderStatus.CANCELED, now))
+                .isEqualTo(1);
+        assertThat(orderRepository.updateStatusIfCurrent(order.getId(), OrderStatus.PENDING, OrderStatus.CANCELED, now))
+                .isZero();
+
+        Order reloaded = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(reloaded.getStatus()).isEqualTo(OrderStatus.CANCELED);
+        assertThat(reloaded.getUpdatedAt()).isEqualTo(now);
+        assertThat(reloaded.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void promotionQueries_honourTheHoldCutoff_andExplicitIdSets() {
+        Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+        Order due = newOrder("cust-hold", 1);
+        due.setCreatedAt(t0);
+        due = orderRepository.save(due);
+        Order held = newOrder("cust-hold", 1);
+        held.setCreatedAt(t0.plusSeconds(120));
+        held = orderRepository.save(held);
+        entityManager.flush();
+
+        assertThat(orderRepository.findIdsByStatusAfter(OrderStatus.PENDING, 0L, t0.plusSeconds(60), PageRequest.of(0, 10)))
+                .containsExactly(due.getId());
+        assertThat(orderRepository.findPendingAfter(OrderStatus.PENDING, 0L, PageRequest.of(0, 10)))
+                .extracting(PendingOrder::id).containsExactly(due.getId(), held.getId());
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<Long> changed = orderRepository.updateStatusForIds(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                List.of(held.getId(), 999_999L), now);
+        assertThat(changed).containsExactly(held.getId());
+        assertThat(orderEventRepository.insertStatusChanges("PENDING", "PROCESSING", changed)).isEqualTo(1);
+        // already promoted: a second attempt changes nothing
+        assertThat(orderRepository.updateStatusForIds(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                List.of(held.getId()), now.plusSeconds(1))).isEmpty();
+    }
+
+    /* ---------- outbox ---------- */
+
+    @Test
+    void outboxStatusChanges_oneEventPerChangedRow_noneForRowsMovedEarlier() {
+        OrderOutbox outbox = new OrderOutbox(orderEventRepository);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) orders.add(orderRepository.save(newOrder("cust-outbox", 1)));
+        entityManager.flush();
+        long firstId = orders.get(0).getId();
+        long lastId = orders.get(4).getId();
+
+        // earlier transitions inside the range: #1 already PROCESSING, #3 CANCELED
+        Instant earlier = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<Long> promotedEarlier = orderRepository.updateStatusForIds(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                List.of(orders.get(1).getId()), earlier);
+        assertThat(outbox.recordStatusChanges(OrderStatus.PENDING, OrderStatus.PROCESSING, promotedEarlier)).isEqualTo(1);
+        orderRepository.updateStatusIfCurrent(orders.get(3).getId(), OrderStatus.PENDING, OrderStatus.CANCELED, earlier);
+        assertThat(outbox.recordStatusChanges(OrderStatus.PENDING, OrderStatus.CANCELED,
+                List.of(orders.get(3).getId()))).isEqualTo(1);
+
+        Instant now = earlier.plusMillis(1);
+        List<Long> moved = orderRepository.updateStatusInRange(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                firstId, lastId, now, now);
+        int recorded = outbox.recordStatusChanges(OrderStatus.PENDING, OrderStatus.PROCESSING, moved);
+        // the same range again: nothing is PENDING any more, nothing is recorded
+        Instant later = now.plusMillis(1);
+        List<Long> movedAgain = orderRepository.updateStatusInRange(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                firstId, lastId, later, later);
+        int recordedAgain = outbox.recordStatusChanges(OrderStatus.PENDING, OrderStatus.PROCESSING, movedAgain);
+
+        assertThat(moved).containsExactly(orders.get(0).getId(), orders.get(2).getId(), orders.get(4).getId());
+        assertThat(recorded).isEqualTo(3);
+        assertThat(movedAgain).isEmpty();
+        assertThat(recordedAgain).isZero();
+        List<OrderEvent> toProcessing = orderEventRepository.findOldest(PageRequest.of(0, 100)).stream()
+                .filter(e -> e.getToStatus() == OrderStatus.PROCESSING)
+                .toList();
+        assertThat(toProcessing).extracting(OrderEvent::getOrderId)
+                .containsExactly(orders.get(1).getId(), orders.get(0).getId(), orders.get(2).getId(), orders.get(4).getId());
+        assertThat(toProcessing).extracting(OrderEvent::getOccurredAt)
+                .containsExactly(earlier, now, now, now);
+    }
+
+
+    @Test
+    void outboxInserts_captureExactlyTheRowsOfTheirChange() {
+        Order a = orderRepository.save(newOrder("cust-events", 1));
+        Order processed = newOrder("cust-events", 1);
+        processed.setStatus(OrderStatus.PROCESSING);
+        processed = orderRepository.save(processed);
+        Order c = orderRepository.save(newOrder("cust-events", 1));
+        entityManager.flush();
+
+        assertThat(orderEventRepository.insertCreated(List.of(a.getId(), c.getId()))).isEqualTo(2);
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        // another writer's order in the same range, already PROCESSING with the very same timestamp
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE orders SET updated_at = :now WHERE id = :id")
+                .setParameter("now", now)
+                .setParameter("id", processed.getId())
+                .executeUpdate();
+        List<Long> promoted = orderRepository.updateStatusInRange(OrderStatus.PENDING, OrderStatus.PROCESSING,
+                a.getId(), c.getId(), now.plusSeconds(1), now);
+        int events = orderEventRepository.insertStatusChanges("PENDING", "PROCESSING", promoted);
+
+        assertThat(promoted).containsExactly(a.getId(), c.getId());
+        // the order that was already PROCESSING is in the id range and has the same updatedAt,
+        // but it is not part of this change
+        assertThat(events).isEqualTo(2);
+        List<OrderEvent> all = orderEventRepository.findOldest(PageRequest.of(0, 10));
+        assertThat(all).extracting(OrderEvent::getOrderId)
+                .containsExactly(a.getId(), c.getId(), a.getId(), c.getId())
+                .doesNotContain(processed.getId());
+        assertThat(all).extracting(OrderEvent::getFromStatus)
+                .containsExactly(null, null, OrderStatus.PENDING, OrderStatus.PENDING);
+        assertThat(all.get(2).getOccurredAt()).isEqualTo(now);
+    }
+
+    /**
+     * Creates orders of 50 items twice in the same run: first as before the sequence ids went in,
+     * one INSERT round trip per row (batch size 1 on this session; IDENTITY ids ruled batching
+     * out), then with the configured JDBC batching. The baseline leaves out the generated-key
+     * read IDENTITY needed per row, so it flatters the old setup if anything.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void bench_createLatencyAndStatementsPerOrder() {
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        session.setJdbcBatchSize(1);
+        double[] rowByRow = benchCreate(200, 2_000);
+        session.setJdbcBatchSize(null);
+        double[] batched = benchCreate(200, 2_000);
+
+        log.info(String.format(Locale.ROOT, "create(50 items) row-by-row: statements/order=%.2f avgLatencyUs=%.1f",
+                rowByRow[0], rowByRow[1]));
+        log.info(String.format(Locale.ROOT, "create(50 items) batched:     statements/order=%.2f avgLatencyUs=%.1f",
+                batched[0], batched[1]));
+        log.info(String.format(Locale.ROOT, "create(50 items) batched/row-by-row: statements x%.3f latency x%.3f",
+                batched[0] / rowByRow[0], batched[1] / rowByRow[1]));
+    }
+
+    /**
+     * Returns {statements per order, average microseconds per order} over the measured creates.
+     */
+    private double[] benchCreate(int warmup, int measured) {
+        for (int i = 0; i < warmup; i++) {
+            orderRepository.save(newOrder("warm", 50));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < measured; i++) {
+            orderRepository.save(newOrder("bench", 50));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        long elapsed = System.nanoTime() - started;
+        return new double[]{(double) statistics.getPrepareStatementCount() / measured, elapsed / 1_000.0 / measured};
+    }
+}
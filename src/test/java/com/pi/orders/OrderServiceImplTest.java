@@ -1,5 +1,6 @@
 package com.pi.orders;
 
+import com.pi.orders.configuration.CacheConfig;
 import com.pi.orders.domain.Order;
 import com.pi.orders.domain.OrderItem;
 import com.pi.orders.domain.OrderStatus;
@@ -7,10 +8,19 @@ import com.pi.orders.exception.BadRequestException;
 import com.pi.orders.exception.GenericException;
 import com.pi.orders.exception.NotFoundException;
 import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.PromotionResult;
+import com.pi.orders.service.impl.OrderCacheInvalidator;
+import com.pi.orders.service.impl.OrderOutbox;
+import com.pi.orders.service.impl.OrderPromotionEngine;
+import com.pi.orders.service.impl.OrderPromotionScheduler;
 import com.pi.orders.service.impl.OrderServiceImpl;
+import com.pi.orders.service.impl.OrderSummaryProjector;
+import com.pi.orders.lib.OrderCursor;
 import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.CursorPage;
 import com.pi.orders.web.dto.OrderItemRequest;
 import com.pi.orders.web.dto.OrderResponse;
+import com.pi.orders.web.dto.OrderSummaryResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +28,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -25,6 +37,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,9 +45,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +59,24 @@ public class OrderServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderPromotionEngine promotionEngine;
+
+    @Mock
+    private OrderCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private OrderOutbox outbox;
+
+    @Mock
+    private OrderPromotionScheduler promotionScheduler;
+
+    @Mock
+    private OrderSummaryProjector summaryProjector;
+
+    @Mock
+    private CacheManager cacheManager;
+
     @InjectMocks
     private OrderServiceImpl service; // class under test
 
@@ -84,6 +118,11 @@ public class OrderServiceImplTest {
         OrderItem item = toSave.getItems().get(0);
         assertThat(item.getOrder()).isSameAs(toSave);
         assertThat(item.getSku()).isEqualTo("SKU-1");
+        assertThat(item.getLineTotal()).isEqualByComparingTo("499.99");
+        assertThat(toSave.getTotal()).isEqualByComparingTo("499.99");
+        verify(outbox).recordCreated(saved);
+        verify(summaryProjector).recordCreated(List.of(42L));
+        verify(promotionScheduler).schedule(42L, saved.getCreatedAt());
     }
 
     @Test
@@ -120,6 +159,29 @@ public class OrderServiceImplTest {
                 .hasMessageContaining("not found");
     }
 
+    @Test
+    void getOrderLastModified_prefersTheCachedResponse_overTheDatabase() {
+        Instant updatedAt = Instant.parse("2025-01-01T00:00:00Z");
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache(CacheConfig.ORDERS_CACHE)).thenReturn(cache);
+        when(cache.get(7L, OrderResponse.class)).thenReturn(new OrderResponse(7L, "cust-1", List.of(),
+                OrderStatus.PENDING, BigDecimal.ONE, updatedAt, updatedAt));
+
+        assertThat(service.getOrderLastModified(7L)).isEqualTo(updatedAt);
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getOrderLastModified_readsOnlyTheTimestamp_onCacheMiss_and404sWhenMissing() {
+        Instant updatedAt = Instant.parse("2025-01-01T00:00:00Z");
+        when(orderRepository.findUpdatedAtById(7L)).thenReturn(Optional.of(updatedAt));
+        when(orderRepository.findUpdatedAtById(99L)).thenReturn(Optional.empty());
+
+        assertThat(service.getOrderLastModified(7L)).isEqualTo(updatedAt);
+        assertThatThrownBy(() -> service.getOrderLastModified(99L)).isInstanceOf(NotFoundException.class);
+        verify(orderRepository, never()).findById(any());
+    }
+
     /* ---------- listOrders ---------- */
 
     @Test
@@ -141,12 +203,123 @@ public class OrderServiceImplTest {
         verify(orderRepository).findByCustomerIdAndStatusIn(eq("cust-1"), anyList(), eq(pageable));
     }
 
+    @Test
+    void listOrdersByCursor_firstPage_fetchesSizePlusOne_andEmitsCursor() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        Order newest = new Order();
+        newest.setId(3L);
+        newest.setCreatedAt(t.plusSeconds(2));
+        Order middle = new Order();
+        middle.setId(2L);
+        middle.setCreatedAt(t.plusSeconds(1));
+        Order oldest = new Order();
+        oldest.setId(1L);
+        oldest.setCreatedAt(t);
+        when(orderRepository.findFirstKeysetPage(eq("cust-1"), isNull(), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(newest, middle, oldest));
+
+        CursorPage<OrderResponse> page = service.listOrders("cust-1", null, null, 2);
+
+        assertThat(page.content()).extracting(OrderResponse::id).containsExactly(3L, 2L);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(OrderCursor.decode(page.nextCursor())).isEqualTo(new OrderCursor(t.plusSeconds(1), 2L));
+    }
+
+    @Test
+    void listOrdersByCursor_nextPage_seeksAfterCursor_andStopsAtEnd() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        Order oldest = new Order();
+        oldest.setId(1L);
+        oldest.setCreatedAt(t);
+        String cursor = new OrderCursor(t.plusSeconds(1), 2L).encode();
+        when(orderRepository.findKeysetPageAfter(eq("cust-1"), anyList(), eq(t.plusSeconds(1)), eq(2L), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(oldest));
+
+        CursorPage<OrderResponse> page = service.listOrders("cust-1", List.of(OrderStatus.PENDING), cursor, 2);
+
+        assertThat(page.content()).extracting(OrderResponse::id).containsExactly(1L);
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void listOrderSummariesByCursor_usesTheProjection_andEmitsTheSameCursor() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        OrderSummaryResponse newest = new OrderSummaryResponse(3L, "cust-1", OrderStatus.PENDING, BigDecimal.TEN, t.plusSeconds(2), t.plusSeconds(2));
+        OrderSummaryResponse middle = new OrderSummaryResponse(2L, "cust-1", OrderStatus.PENDING, BigDecimal.TEN, t.plusSeconds(1), t.plusSeconds(1));
+        OrderSummaryResponse oldest = new OrderSummaryResponse(1L, "cust-1", OrderStatus.PENDING, BigDecimal.TEN, t, t);
+        when(orderRepository.findFirstSummaryKeysetPage(eq("cust-1"), isNull(), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(newest, middle, oldest));
+
+        CursorPage<OrderSummaryResponse> page = service.listOrderSummaries("cust-1", null, null, 2);
+
+        assertThat(page.content()).containsExactly(newest, middle);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(OrderCursor.decode(page.nextCursor())).isEqualTo(new OrderCursor(t.plusSeconds(1), 2L));
+        verify(orderRepository, never()).findFirstKeysetPage(any(), any(), any());
+    }
+
+    @Test
+    void findOrdersBySku_pagesTheProjection_withTheListingCursor() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        OrderSummaryResponse newest = new OrderSummaryResponse(9L, "cust-2", OrderStatus.PENDING, BigDecimal.TEN, t.plusSeconds(1), t.plusSeconds(1));
+        OrderSummaryResponse oldest = new OrderSummaryResponse(4L, "cust-1", OrderStatus.PENDING, BigDecimal.TEN, t, t);
+        when(orderRepository.findFirstSummaryPageBySku(eq("SKU-7"), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(newest, oldest));
+
+        CursorPage<OrderSummaryResponse> page = service.findOrdersBySku("SKU-7", null, null, null, null, 1);
+
+        assertThat(page.content()).containsExactly(newest);
+        assertThat(OrderCursor.decode(page.nextCursor())).isEqualTo(new OrderCursor(t.plusSeconds(1), 9L));
+
+        when(orderRepository.findSummaryPageBySkuAfter(eq("SKU-7"), isNull(), isNull(), isNull(),
+                eq(t.plusSeconds(1)), eq(9L), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(oldest));
+
+        CursorPage<OrderSummaryResponse> next = service.findOrdersBySku("SKU-7", null, null, null, page.nextCursor(), 1);
+
+        assertThat(next.content()).containsExactly(oldest);
+        assertThat(next.hasNext()).isFalse();
+    }
+
+    @Test
+    void findOrdersBySku_rejectsBlankSkuAndEmptyDateRange() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        assertThatThrownBy(() -> service.findOrdersBySku(" ", null, null, null, null, 20))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.findOrdersBySku("SKU-7", null, t, t, null, 20))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void listOrdersByCursor_rejectsMalformedCursor() {
+        assertThatThrownBy(() -> service.listOrders("cust-1", null, "not-a-cursor", 20))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid cursor");
+    }
+
     /* ---------- updateOrders ---------- */
 
+    @Test
+    void updateOrders_delegatesToChunkedEngine_andReturnsResult() {
+        PromotionResult result = new PromotionResult(3, List.of(
+                new PromotionResult.Chunk(1L, 2L, 2, 4L),
+                new PromotionResult.Chunk(5L, 5L, 1, 1L)));
+        Instant cutoff = Instant.parse("2025-01-01T00:00:00Z");
+        when(promotionScheduler.dueCutoff()).thenReturn(cutoff);
+        when(promotionEngine.promote(OrderStatus.PENDING, OrderStatus.PROCESSING, cutoff)).thenReturn(result);
+
+        PromotionResult actual = service.updateOrders();
+
+        assertThat(actual.promoted()).isEqualTo(3);
+        assertThat(actual.chunks()).hasSize(2);
+        assertThat(actual.elapsedMillis()).isEqualTo(5L);
+    }
 
     @Test
     void updateOrders_wrapsUnexpectedErrorsAs500() {
-        when(orderRepository.findByStatus(OrderStatus.PENDING))
+        when(promotionEngine.promote(eq(OrderStatus.PENDING), eq(OrderStatus.PROCESSING), any()))
                 .thenThrow(new RuntimeException("db error"));
 
         assertThatThrownBy(() -> service.updateOrders())
@@ -157,22 +330,27 @@ public class OrderServiceImplTest {
     /* ---------- cancelOrder ---------- */
 
     @Test
-    void cancelOrder_setsCanceled_whenPending() {
+    void cancelOrder_setsCanceled_withOneConditionalUpdate_whenPending() {
+        when(orderRepository.updateStatusIfCurrent(eq(5L), eq(OrderStatus.PENDING), eq(OrderStatus.CANCELED), any(Instant.class)))
+                .thenReturn(1);
         Order o = new Order();
         o.setId(5L);
-        o.setStatus(OrderStatus.PENDING);
+        o.setStatus(OrderStatus.CANCELED);
         when(orderRepository.findById(5L)).thenReturn(Optional.of(o));
-        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
 
         OrderResponse resp = service.cancelOrder(5L);
 
         assertThat(resp.status()).isEqualTo(OrderStatus.CANCELED);
-        verify(orderRepository).save(argThat(ord -> ord.getStatus() == OrderStatus.CANCELED));
+        verify(outbox).recordStatusChanges(OrderStatus.PENDING, OrderStatus.CANCELED, List.of(5L));
+        verify(summaryProjector).recordTransition(OrderStatus.PENDING, OrderStatus.CANCELED, List.of(5L));
+        verify(cacheInvalidator).evict(5L);
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     void cancelOrder_throws404_whenNotFound() {
-        when(orderRepository.findById(404L)).thenReturn(Optional.empty());
+        when(orderRepository.updateStatusIfCurrent(eq(404L), any(), any(), any())).thenReturn(0);
+        when(orderRepository.existsById(404L)).thenReturn(false);
 
         assertThatThrownBy(() -> service.cancelOrder(404L))
                 .isInstanceOf(NotFoundException.class);
@@ -180,13 +358,13 @@ public class OrderServiceImplTest {
 
     @Test
     void cancelOrder_throws400_whenNotPending() {
-        Order o = new Order();
-        o.setId(6L);
-        o.setStatus(OrderStatus.SHIPPED);
-        when(orderRepository.findById(6L)).thenReturn(Optional.of(o));
+        // no longer PENDING, e.g. promoted concurrently: the conditional update matches nothing
+        when(orderRepository.updateStatusIfCurrent(eq(6L), any(), any(), any())).thenReturn(0);
+        when(orderRepository.existsById(6L)).thenReturn(true);
 
         assertThatThrownBy(() -> service.cancelOrder(6L))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("Cannot cancel order");
+        verifyNoInteractions(outbox, cacheInvalidator);
     }
 }
@@ -0,0 +1,296 @@
+package com.pi.orders;
+
+import com.pi.orders.domain.CustomerStatusSummary;
+import com.pi.orders.domain.Order;
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.lib.OrderProcessingLibrary;
+import com.pi.orders.repo.CustomerStatusSummaryRepository;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.impl.OrderSummaryProjector;
+import com.pi.orders.service.impl.OrderSummaryServiceImpl;
+import com.pi.orders.web.dto.CreateOrderRequest;
+import com.pi.orders.web.dto.CustomerOrderSummary;
+import com.pi.orders.web.dto.OrderItemRequest;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The summary read model against the embedded H2 schema: the projector's MERGEs on create and
+ * on status changes, the rebuilds, the V6 backfill in schema.sql and concurrent first rows.
+ */
+@DataJpaTest
+public class OrderSummaryServiceImplTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    CustomerStatusSummaryRepository summaryRepository;
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    JdbcTemplate jdbc;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private OrderSummaryProjector projector;
+    private OrderSummaryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        projector = new OrderSummaryProjector(dataSource);
+        service = new OrderSummaryServiceImpl(summaryRepository, transactionManager, 2);
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static Order newOrder(String customerId, Instant createdAt, String unitPrice) {
+        Order order = OrderProcessingLibrary.toOrder(new CreateOrderRequest(customerId,
+                List.of(new OrderItemRequest("SKU-1", "Item", 2, new BigDecimal(unitPrice)))));
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+
+    private Order create(String customerId, Instant createdAt, String unitPrice) {
+        Order order = orderRepository.save(newOrder(customerId, createdAt, unitPrice));
+        entityManager.flush();
+        projector.recordCreated(List.of(order.getId()));
+        return order;
+    }
+
+    private void transition(OrderStatus from, OrderStatus to, Order first, Order last) {
+        List<Long> changed = orderRepository.updateStatusInRange(from, to, first.getId(), last.getId(),
+                Instant.now(), Instant.now());
+        projector.recordTransition(from, to, changed);
+        entityManager.clear();
+    }
+
+    /* ---------- incremental maintenance ---------- */
+
+    @Test
+    void created_areCountedPerCustomerAndStatus() {
+        create("cust-a", T0, "5.00");
+        create("cust-b", T0, "1.00");
+        // the second order for (cust-a, PENDING) takes the MATCHED branch
+        create("cust-a", T0.plusSeconds(60), "7.50");
+
+        CustomerOrderSummary summary = service.getSummary("cust-a");
+
+        assertThat(summary.counts()).containsEntry(OrderStatus.PENDING, 2L).containsEntry(OrderStatus.CANCELED, 0L);
+        assertThat(summary.totalOrders()).isEqualTo(2);
+        assertThat(summary.totalValue()).isEqualByComparingTo("25.00");
+        assertThat(summary.lastOrderAt()).isEqualTo(T0.plusSeconds(60));
+        assertThat(service.getSummary("cust-b").totalOrders()).isEqualTo(1);
+    }
+
+    @Test
+    void createdInBulk_areGroupedPerCustomer() {
+        List<Order> orders = orderRepository.saveAll(List.of(
+                newOrder("cust-bulk-1", T0, "1.00"),
+                newOrder("cust-bulk-2", T0, "2.00"),
+                newOrder("cust-bulk-1", T0.plusSeconds(1), "3.00")));
+        entityManager.flush();
+        projector.recordCreated(orders.stream().map(Order::getId).toList());
+
+        assertThat(summaryRepository.findByCustomerId("cust-bulk-1"))
+                .extracting(CustomerStatusSummary::getStatus, CustomerStatusSummary::getOrderCount)
+                .containsExactly(tuple(OrderStatus.PENDING, 2L));
+        assertThat(service.getSummary("cust-bulk-2").totalValue()).isEqualByComparingTo("4.00");
+    }
+
+    @Test
+    void transition_movesCountAndValue_andSkipsRowsAlreadyInTheTargetStatus() {
+        Order a = create("cust-t", T0, "1.00");
+        Order b = create("cust-t", T0.plusSeconds(1), "2.00");
+        Order c = create("cust-t", T0.plusSeconds(2), "4.00");
+        // b moves first; the later range transition over a..c must not count it again
+        transition(OrderStatus.PENDING, OrderStatus.PROCESSING, b, b);
+        transition(OrderStatus.PENDING, OrderStatus.PROCESSING, a, c);
+
+        CustomerOrderSummary summary = service.getSummary("cust-t");
+        assertThat(summary.counts()).containsEntry(OrderStatus.PENDING, 0L).containsEntry(OrderStatus.PROCESSING, 3L);
+        assertThat(summary.totalValue()).isEqualByComparingTo("14.00");
+
+        transition(OrderStatus.PROCESSING, OrderStatus.CANCELED, c, c);
+        summary = service.getSummary("cust-t");
+        assertThat(summary.counts()).containsEntry(OrderStatus.PROCESSING, 2L).containsEntry(OrderStatus.CANCELED, 1L);
+        // canceled orders are counted but not spent
+        assertThat(summary.totalValue()).isEqualByComparingTo("6.00");
+        assertThat(summary.totalOrders()).isEqualTo(3);
+    }
+
+    @Test
+    void summaryDeltas_matchARebuildFromOrders() {
+        Order a = orderRepository.save(newOrder("cust-sum", T0, "9.99"));
+        Order b = orderRepository.save(newOrder("cust-sum", T0.plusSeconds(1), "19.98"));
+        Order c = orderRepository.save(newOrder("cust-sum", T0.plusSeconds(2), "29.97"));
+        entityManager.flush();
+        projector.recordCreated(List.of(a.getId(), b.getId(), c.getId()));
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        orderRepository.updateStatusIfCurrent(b.getId(), OrderStatus.PENDING, OrderStatus.CANCELED, now);
+        projector.recordTransition(OrderStatus.PENDING, OrderStatus.CANCELED, List.of(b.getId()));
+        entityManager.clear();
+
+        List<CustomerStatusSummary> incremental = summaryRepository.findByCustomerId("cust-sum");
+        assertThat(incremental).extracting(CustomerStatusSummary::getStatus, CustomerStatusSummary::getOrderCount)
+                .containsExactlyInAnyOrder(
+                        tuple(OrderStatus.PENDING, 2L),
+                        tuple(OrderStatus.CANCELED, 1L));
+        BigDecimal pendingValue = a.getTotal().add(c.getTotal());
+        assertThat(incremental).filteredOn(row -> row.getStatus() == OrderStatus.PENDING).singleElement()
+                .satisfies(row -> assertThat(row.getOrderValue()).isEqualByComparingTo(pendingValue));
+
+        entityManager.clear();
+        CustomerOrderSummary rebuilt = service.rebuild("cust-sum");
+        entityManager.clear();
+        assertThat(rebuilt.counts()).containsEntry(OrderStatus.PENDING, 2L).containsEntry(OrderStatus.CANCELED, 1L);
+        assertThat(summaryRepository.findByCustomerId("cust-sum"))
+                .usingRecursiveFieldByFieldElementComparator(RecursiveComparisonConfiguration.builder()
+                        .withIgnoredFields("lastCreatedAt")
+                        .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                        .build())
+                .containsExactlyInAnyOrderElementsOf(incremental);
+    }
+
+    /* ---------- rebuild and backfill ---------- */
+
+    @Test
+    void rebuildAll_replacesDriftedRows_forEveryCustomer_inBatches() {
+        // five customers over three batches of two; ghosts have summary rows but no orders
+        create("cust-r1", T0, "1.00");
+        create("cust-r2", T0, "2.00");
+        create("cust-r4", T0, "4.00");
+        jdbc.update("UPDATE customer_status_summary SET order_count = 99 WHERE customer_id IN ('cust-r1', 'cust-r2', 'cust-r4')");
+        jdbc.update("INSERT INTO customer_status_summary VALUES ('cust-r3-ghost', 'PENDING', 1, 1.00, NULL)");
+        jdbc.update("INSERT INTO customer_status_summary VALUES ('cust-r5-ghost', 'PENDING', 1, 1.00, NULL)");
+
+        assertThat(service.rebuildAll()).isEqualTo(3);
+        entityManager.clear();
+
+        assertThat(service.getSummary("cust-r1").counts()).containsEntry(OrderStatus.PENDING, 1L);
+        assertThat(service.getSummary("cust-r2").counts()).containsEntry(OrderStatus.PENDING, 1L);
+        assertThat(service.getSummary("cust-r4").counts()).containsEntry(OrderStatus.PENDING, 1L);
+        assertThat(summaryRepository.findByCustomerId("cust-r3-ghost")).isEmpty();
+        assertThat(summaryRepository.findByCustomerId("cust-r5-ghost")).isEmpty();
+    }
+
+    @Test
+    void customerKeyset_readsTheNextCustomersOfEachTable() {
+        create("cust-k1", T0, "1.00");
+        create("cust-k1", T0.plusSeconds(1), "1.00");
+        create("cust-k2", T0, "1.00");
+        create("cust-k3", T0, "1.00");
+
+        assertThat(summaryRepository.findOrderCustomersAfter("cust-k1", 10)).containsExactly("cust-k2", "cust-k3");
+        assertThat(summaryRepository.findOrderCustomersAfter("", 2)).containsExactly("cust-k1", "cust-k2");
+        assertThat(summaryRepository.findSummaryCustomersAfter("cust-k2", 10)).containsExactly("cust-k3");
+    }
+
+    @Test
+    void schemaBackfill_fillsAnEmptyTable_andLeavesAFilledOneAlone() throws Exception {
+        orderRepository.save(newOrder("cust-fill", T0, "1.00"));
+        orderRepository.save(newOrder("cust-fill", T0.plusSeconds(5), "2.00"));
+        entityManager.flush();
+        jdbc.update("DELETE FROM customer_status_summary");
+        List<String> backfill = Arrays.stream(new ClassPathResource("schema.sql")
+                        .getContentAsString(StandardCharsets.UTF_8).split(";"))
+                .map(String::strip)
+                .filter(sql -> sql.startsWith("INSERT INTO customer_status_summary"))
+                .toList();
+        assertThat(backfill).hasSize(1);
+
+        jdbc.update(backfill.get(0));
+        CustomerOrderSummary filled = service.getSummary("cust-fill");
+        assertThat(filled.counts()).containsEntry(OrderStatus.PENDING, 2L);
+        assertThat(filled.totalValue()).isEqualByComparingTo("6.00");
+        assertThat(filled.lastOrderAt()).isEqualTo(T0.plusSeconds(5));
+
+        // schema.sql runs on every start: a second run must not add the orders again
+        int rows = jdbc.queryForObject("SELECT COUNT(*) FROM customer_status_summary", Integer.class);
+        assertThat(jdbc.update(backfill.get(0))).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM customer_status_summary", Integer.class)).isEqualTo(rows);
+    }
+
+    /* ---------- concurrency ---------- */
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentFirstOrders_forTheSameCustomerAndStatus_areBothCounted() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch firstMerged = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = threads.submit(() -> tx.executeWithoutResult(status -> {
+                Order order = orderRepository.saveAndFlush(newOrder("cust-race", T0, "1.00"));
+                projector.recordCreated(List.of(order.getId()));
+                firstMerged.countDown();
+                // still uncommitted while the second transaction inserts the same summary row
+                sleep(50);
+            }));
+            Future<?> second = threads.submit(() -> tx.executeWithoutResult(status -> {
+                Order order = orderRepository.saveAndFlush(newOrder("cust-race", T0, "2.00"));
+                await(firstMerged);
+                projector.recordCreated(List.of(order.getId()));
+            }));
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+
+            CustomerOrderSummary summary = service.getSummary("cust-race");
+            assertThat(summary.counts()).containsEntry(OrderStatus.PENDING, 2L);
+            assertThat(summary.totalValue()).isEqualByComparingTo("6.00");
+        } finally {
+            threads.shutdownNow();
+            jdbc.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE customer_id = 'cust-race')");
+            jdbc.update("DELETE FROM orders WHERE customer_id = 'cust-race'");
+            jdbc.update("DELETE FROM customer_status_summary WHERE customer_id = 'cust-race'");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
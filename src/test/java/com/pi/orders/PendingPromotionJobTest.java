@@ -0,0 +1,74 @@
+package com.pi.orders;
+
+import com.pi.orders.domain.OrderStatus;
+import com.pi.orders.repo.OrderRepository;
+import com.pi.orders.service.OrderService;
+import com.pi.orders.service.PendingPromotionJob;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PendingPromotionJobTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private Gauge oldestPendingAge(Duration ttl) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new PendingPromotionJob(orderService, orderRepository, registry, ttl);
+        return registry.get("orders.pending.oldest.age").gauge();
+    }
+
+    @Test
+    void oldestPendingAge_isReadOnScrape_andReusedWithinTheTtl() {
+        when(orderRepository.findCreatedAtOfOldest(eq(OrderStatus.PENDING), any()))
+                .thenReturn(List.of(Instant.now().minusSeconds(90)));
+        Gauge age = oldestPendingAge(Duration.ofMinutes(1));
+        // nothing is read until the first scrape, and no promotion run is needed for it
+        verifyNoInteractions(orderRepository);
+
+        assertThat(age.value()).isCloseTo(90, within(5d));
+        assertThat(age.value()).isCloseTo(90, within(5d));
+        verify(orderRepository, times(1)).findCreatedAtOfOldest(eq(OrderStatus.PENDING), any());
+    }
+
+    @Test
+    void oldestPendingAge_isReadAgainOnceTheTtlHasPassed() {
+        when(orderRepository.findCreatedAtOfOldest(eq(OrderStatus.PENDING), any()))
+                .thenReturn(List.of(Instant.now().minusSeconds(90)))
+                .thenReturn(List.of());
+        Gauge age = oldestPendingAge(Duration.ZERO);
+
+        assertThat(age.value()).isPositive();
+        // the backlog drained: no PENDING orders left
+        assertThat(age.value()).isZero();
+    }
+
+    @Test
+    void failedLookup_reportsNaN() {
+        when(orderRepository.findCreatedAtOfOldest(eq(OrderStatus.PENDING), any()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        assertThat(oldestPendingAge(Duration.ofSeconds(15)).value()).isNaN();
+    }
+}
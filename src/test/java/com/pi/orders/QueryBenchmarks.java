@@ -0,0 +1,47 @@
+package com.pi.orders;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * Plan and latency harness shared by the opt-in query benchmarks
+ * ({@link QueryPlanBenchmarkTest}, {@link SkuLookupBenchmarkTest}).
+ */
+@Log4j2
+final class QueryBenchmarks {
+
+    private QueryBenchmarks() {
+    }
+
+    /**
+     * H2's EXPLAIN of {@code sql} with every {@code ?} replaced by {@code sampleArg} (an SQL literal).
+     */
+    static String plan(JdbcTemplate jdbc, String sql, String sampleArg) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql.replace("?", sampleArg), String.class));
+    }
+
+    /**
+     * Runs {@code query} {@code iterations} times after a warm-up of up to 100 runs and logs
+     * p50/p99 with the plan; the argument is the iteration number, to vary the parameters.
+     */
+    static void measure(String name, String plan, int iterations, IntConsumer query) {
+        for (int i = 0; i < Math.min(iterations, 100); i++) query.accept(i); // warm-up
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            query.accept(i);
+            nanos[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(nanos);
+        log.info("{}: p50={}ms p99={}ms{}{}", name, millis(nanos[iterations / 2]),
+                millis(nanos[(int) (iterations * 0.99)]), System.lineSeparator(), plan);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,138 @@
+package com.pi.orders;
+
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.pi.orders.QueryBenchmarks.measure;
+import static com.pi.orders.QueryBenchmarks.plan;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plans and latency of the main access paths on a generated data set
+ * (1M orders, 2M items, 1000 customers).
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=QueryPlanBenchmarkTest}.
+ * Each path is measured with the schema.sql indexes and again after dropping them; the
+ * customer list plans are also checked against the indexes meant to serve them.
+ */
+@DataJpaTest
+@Log4j2
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+public class QueryPlanBenchmarkTest {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int CUSTOMERS = 1_000;
+
+    private static final String BY_CUSTOMER = """
+            SELECT id FROM orders
+            WHERE customer_id = ? AND status IN ('PENDING', 'SHIPPED')
+            ORDER BY created_at DESC, id DESC LIMIT 20""";
+    private static final String BY_CUSTOMER_AFTER = """
+            SELECT id FROM orders
+            WHERE customer_id = ? AND status IN ('PENDING', 'SHIPPED')
+              AND ( created_at < TIMESTAMP WITH TIME ZONE '2024-01-06 00:00:00+00'
+                    OR ( created_at = TIMESTAMP WITH TIME ZONE '2024-01-06 00:00:00+00' AND id < 432000 ) )
+            ORDER BY created_at DESC, id DESC LIMIT 20""";
+    private static final String ALL_OF_CUSTOMER = """
+            SELECT id FROM orders
+            WHERE customer_id = ?
+            ORDER BY created_at DESC, id DESC LIMIT 20""";
+    private static final String ALL_OF_CUSTOMER_AFTER = """
+            SELECT id FROM orders
+            WHERE customer_id = ?
+              AND ( created_at < TIMESTAMP WITH TIME ZONE '2024-01-06 00:00:00+00'
+                    OR ( created_at = TIMESTAMP WITH TIME ZONE '2024-01-06 00:00:00+00' AND id < 432000 ) )
+            ORDER BY created_at DESC, id DESC LIMIT 20""";
+    private static final String PENDING_KEYSET = """
+            SELECT id FROM orders
+            WHERE status = 'PENDING' AND id > ?
+            ORDER BY id LIMIT 500""";
+    private static final String OLDEST_PENDING = """
+            SELECT created_at FROM orders
+            WHERE status = 'PENDING'
+            ORDER BY status, created_at FETCH FIRST 1 ROWS ONLY""";
+    private static final String ITEMS_OF_ORDER = "SELECT id, sku, quantity FROM order_items WHERE order_id = ?";
+
+    private static final List<String> INDEXES = List.of(
+            "idx_orders_customer_status_created ON orders (customer_id, status, created_at)",
+            "idx_orders_customer_created_id ON orders (customer_id, created_at, id)",
+            "idx_orders_status ON orders (status, id)",
+            "idx_orders_status_created ON orders (status, created_at)",
+            "idx_order_items_order_id ON order_items (order_id)");
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.execute("""
+                INSERT INTO orders (id, customer_id, status, created_at, updated_at)
+                SELECT X, 'cust-' || MOD(X, %d),
+                       CASE MOD(X, 5) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PROCESSING' WHEN 2 THEN 'SHIPPED'
+                                      WHEN 3 THEN 'DELIVERED' ELSE 'CANCELED' END,
+                       DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00+00'),
+                       DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00+00')
+                FROM SYSTEM_RANGE(1, %d)""".formatted(CUSTOMERS, ORDERS));
+        jdbc.execute("""
+                INSERT INTO order_items (id, sku, name, quantity, unit_price, order_id)
+                SELECT X, 'SKU-' || MOD(X, 5000), 'Item', 1 + MOD(X, 3), 9.99, (X + 1) / 2
+                FROM SYSTEM_RANGE(1, %d)""".formatted(ORDERS * 2));
+        jdbc.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        INDEXES.forEach(ddl -> jdbc.execute("CREATE INDEX IF NOT EXISTS " + ddl));
+        jdbc.execute("DELETE FROM order_items");
+        jdbc.execute("DELETE FROM orders");
+    }
+
+    @Test
+    void customerLists_useTheCustomerIndexes() {
+        // no status filter: only the (customer_id, created_at, id) index gives the page order
+        assertThat(plan(jdbc, ALL_OF_CUSTOMER, "'cust-42'")).containsIgnoringCase("idx_orders_customer_created_id");
+        assertThat(plan(jdbc, ALL_OF_CUSTOMER_AFTER, "'cust-42'")).containsIgnoringCase("idx_orders_customer_created_id");
+        // several statuses: either customer index is a seek, never a scan of all orders
+        assertThat(plan(jdbc, BY_CUSTOMER, "'cust-42'")).containsPattern("(?i)idx_orders_customer_(status_created|created_id)");
+        assertThat(plan(jdbc, BY_CUSTOMER_AFTER, "'cust-42'")).containsPattern("(?i)idx_orders_customer_(status_created|created_id)");
+    }
+
+    @Test
+    void accessPaths_withAndWithoutIndexes() {
+        report("indexed", 2_000);
+        INDEXES.forEach(ddl -> jdbc.execute("DROP INDEX IF EXISTS " + ddl.substring(0, ddl.indexOf(' '))));
+        // order_items.order_id keeps the index H2 creates for the foreign key
+        report("no secondary indexes", 50);
+    }
+
+    /* ---------- helpers ---------- */
+
+    private void report(String label, int iterations) {
+        log.info("=== {}", label);
+        measure("byCustomerStatusCreatedAt", plan(jdbc, BY_CUSTOMER, "'cust-42'"), iterations,
+                i -> jdbc.queryForList(BY_CUSTOMER, Long.class, "cust-" + (i % CUSTOMERS)));
+        measure("byCustomerStatusAfterCursor", plan(jdbc, BY_CUSTOMER_AFTER, "'cust-42'"), iterations,
+                i -> jdbc.queryForList(BY_CUSTOMER_AFTER, Long.class, "cust-" + (i % CUSTOMERS)));
+        measure("allOfCustomer", plan(jdbc, ALL_OF_CUSTOMER, "'cust-42'"), iterations,
+                i -> jdbc.queryForList(ALL_OF_CUSTOMER, Long.class, "cust-" + (i % CUSTOMERS)));
+        measure("allOfCustomerAfterCursor", plan(jdbc, ALL_OF_CUSTOMER_AFTER, "'cust-42'"), iterations,
+                i -> jdbc.queryForList(ALL_OF_CUSTOMER_AFTER, Long.class, "cust-" + (i % CUSTOMERS)));
+        measure("pendingKeyset", plan(jdbc, PENDING_KEYSET, "0"), iterations,
+                i -> jdbc.queryForList(PENDING_KEYSET, Long.class, (long) (i * 997 % ORDERS)));
+        measure("oldestPending", plan(jdbc, OLDEST_PENDING, ""), iterations,
+                i -> jdbc.queryForList(OLDEST_PENDING));
+        measure("itemsOfOrder", plan(jdbc, ITEMS_OF_ORDER, "42"), iterations,
+                i -> jdbc.queryForList(ITEMS_OF_ORDER, 1 + (long) (i * 7919 % ORDERS)));
+    }
+}
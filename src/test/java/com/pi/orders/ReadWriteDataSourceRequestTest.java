@@ -0,0 +1,101 @@
+package com.pi.orders;
+
+import com.jayway.jsonpath.JsonPath;
+import com.pi.orders.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read/write routing across a whole request, through JPA: the read pool points at a second
+ * in-memory database with the same schema, so a write that lands on the wrong pool is visible.
+ * An idempotent create reads the key in a read-only transaction before it writes the order.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "orders.datasource.read.enabled=true",
+        "orders.datasource.read.url=jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;INIT=RUNSCRIPT FROM 'classpath:schema.sql'",
+        "orders.datasource.read.hikari.maximum-pool-size=1",
+        "orders.outbox.publisher=in-process"
+})
+@AutoConfigureMockMvc
+public class ReadWriteDataSourceRequestTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primary;
+
+    @Autowired
+    @Qualifier("readDataSource")
+    DataSource replica;
+
+    @Test
+    void readOnlyLookupThenCreate_inOneRequest_writesToThePrimary() throws Exception {
+        mockMvc.perform(post("/api/orders")
+                        .header("Idempotency-Key", "rw-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"customerId":"rw-c1","items":[{"sku":"SKU-1","name":"Item","quantity":1,"unitPrice":9.99}]}"""))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+
+        assertThat(count(primary, "SELECT COUNT(*) FROM orders WHERE customer_id = 'rw-c1'")).isEqualTo(1);
+        assertThat(count(primary, "SELECT COUNT(*) FROM idempotency_keys WHERE idem_key = 'rw-key-1'")).isEqualTo(1);
+        assertThat(count(replica, "SELECT COUNT(*) FROM orders")).isZero();
+        assertThat(count(replica, "SELECT COUNT(*) FROM idempotency_keys")).isZero();
+    }
+
+    @Test
+    void orderDetails_fillTheCacheFromThePrimary_notFromALaggingReplica() throws Exception {
+        String created = mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"customerId":"rw-c2","items":[{"sku":"SKU-1","name":"Item","quantity":1,"unitPrice":9.99}]}"""))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = ((Number) JsonPath.read(created, "$.id")).longValue();
+
+        // the replica never receives the order, like one that has not caught up yet
+        mockMvc.perform(get("/api/orders/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerId").value("rw-c2"));
+        assertThat(count(replica, "SELECT COUNT(*) FROM orders")).isZero();
+    }
+
+    @Test
+    void conditionalGetLookup_usesTheReadPool() {
+        Instant updatedAt = Instant.parse("2025-03-01T10:00:00Z");
+        new JdbcTemplate(replica).update("""
+                INSERT INTO orders (id, customer_id, status, created_at, updated_at, total)
+                VALUES (9000001, 'rw-c3', 'PENDING', ?, ?, 0)""", Timestamp.from(updatedAt), Timestamp.from(updatedAt));
+
+        // the order exists on the replica only
+        assertThat(orderService.getOrderLastModified(9000001L)).isEqualTo(updatedAt);
+    }
+
+    private static long count(DataSource dataSource, String sql) {
+        return new JdbcTemplate(dataSource).queryForObject(sql, Long.class);
+    }
+}
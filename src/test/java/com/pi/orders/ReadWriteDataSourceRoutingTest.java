@@ -0,0 +1,77 @@
+package com.pi.orders;
+
+import com.pi.orders.configuration.ReadWriteDataSourceConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing of {@link ReadWriteDataSourceConfig#routing}: two in-memory H2 databases stand in for
+ * the primary and the replica, each with a marker row naming itself.
+ */
+public class ReadWriteDataSourceRoutingTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(16))");
+        jdbc.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static String readMarker(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    @Test
+    void readOnlyTransactions_goToTheReadPool_everythingElseToThePrimary() {
+        DataSource routing = ReadWriteDataSourceConfig.routing(primary, replica, registry);
+
+        assertThat(readMarker(routing, true)).isEqualTo("replica");
+        assertThat(readMarker(routing, false)).isEqualTo("primary");
+        assertThat(new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class)).isEqualTo("primary");
+        assertThat(registry.counter("orders.datasource.read.fallback").count()).isZero();
+    }
+
+    @Test
+    void readFromPrimary_takesReadOnlyConnectionsFromThePrimary() {
+        DataSource routing = ReadWriteDataSourceConfig.routing(primary, replica, registry);
+
+        assertThat(ReadWriteDataSourceConfig.readFromPrimary(() -> readMarker(routing, true))).isEqualTo("primary");
+        // the scope ends with the call
+        assertThat(readMarker(routing, true)).isEqualTo("replica");
+        assertThat(registry.counter("orders.datasource.read.fallback").count()).isZero();
+    }
+
+    @Test
+    void unreachableReadPool_fallsBackToThePrimary() {
+        // nothing listens on port 1: the connection is refused at once
+        DataSource unreachable = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/replica", "sa", "");
+        DataSource routing = ReadWriteDataSourceConfig.routing(primary, unreachable, registry);
+
+        assertThat(readMarker(routing, true)).isEqualTo("primary");
+        assertThat(registry.counter("orders.datasource.read.fallback").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,124 @@
+package com.pi.orders;
+
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+import static com.pi.orders.QueryBenchmarks.measure;
+import static com.pi.orders.QueryBenchmarks.plan;
+
+/**
+ * The orders-by-SKU lookup (GET /api/orders/by-sku) at tens of millions of item rows:
+ * 20M items on 5M orders (4 per order), 100k ordinary SKUs of ~200 lines each and one
+ * recall SKU on every 500th line (40k orders). Measured with idx_order_items_sku_order and
+ * again without it.
+ * <p>
+ * Opt-in: {@code mvn test -Dbench=true -Dtest=SkuLookupBenchmarkTest -DargLine=-Xmx8g};
+ * {@code -Dbench.sku.items=N} changes the number of item rows.
+ */
+@DataJpaTest
+@Log4j2
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+public class SkuLookupBenchmarkTest {
+
+    private static final int ITEMS = Integer.getInteger("bench.sku.items", 20_000_000);
+    private static final int ITEMS_PER_ORDER = 4;
+    private static final int ORDERS = ITEMS / ITEMS_PER_ORDER;
+    private static final int SKUS = 100_000;
+    private static final int RECALL_EVERY = 500;
+    private static final int CHUNK = 1_000_000;
+
+    // the native form of OrderRepository.findFirstSummaryPageBySku / findSummaryPageBySkuAfter
+    private static final String BY_SKU = """
+            SELECT o.id, o.customer_id, o.status, o.total, o.created_at, o.updated_at
+            FROM orders o
+            WHERE o.id IN (SELECT i.order_id FROM order_items i WHERE i.sku = ?)
+            ORDER BY o.created_at DESC, o.id DESC LIMIT 21""";
+    private static final String BY_SKU_FILTERED = """
+            SELECT o.id, o.customer_id, o.status, o.total, o.created_at, o.updated_at
+            FROM orders o
+            WHERE o.id IN (SELECT i.order_id FROM order_items i WHERE i.sku = ?)
+              AND o.status IN ('PENDING', 'PROCESSING')
+              AND o.created_at >= TIMESTAMP WITH TIME ZONE '2024-01-20 00:00:00+00'
+              AND o.created_at < TIMESTAMP WITH TIME ZONE '2024-02-01 00:00:00+00'
+            ORDER BY o.created_at DESC, o.id DESC LIMIT 21""";
+    private static final String BY_SKU_AFTER = """
+            SELECT o.id, o.customer_id, o.status, o.total, o.created_at, o.updated_at
+            FROM orders o
+            WHERE o.id IN (SELECT i.order_id FROM order_items i WHERE i.sku = ?)
+              AND ( o.created_at < DATEADD('SECOND', ?, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00+00')
+                    OR ( o.created_at = DATEADD('SECOND', ?, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00+00')
+                         AND o.id < ? ) )
+            ORDER BY o.created_at DESC, o.id DESC LIMIT 21""";
+
+    private static final String SKU_INDEX = "idx_order_items_sku_order ON order_items (sku, order_id)";
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        for (int from = 1; from <= ORDERS; from += CHUNK) {
+            jdbc.execute("""
+                    INSERT INTO orders (id, customer_id, status, total, created_at, updated_at)
+                    SELECT X, 'cust-' || MOD(X, 10000),
+                           CASE MOD(X, 5) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PROCESSING' WHEN 2 THEN 'SHIPPED'
+                                          WHEN 3 THEN 'DELIVERED' ELSE 'CANCELED' END,
+                           39.96,
+                           DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00+00'),
+                           DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2024-01-01 00:00:00+00')
+                    FROM SYSTEM_RANGE(%d, %d)""".formatted(from, Math.min(from + CHUNK - 1, ORDERS)));
+        }
+        for (int from = 1; from <= ITEMS; from += CHUNK) {
+            jdbc.execute("""
+                    INSERT INTO order_items (id, sku, name, quantity, unit_price, line_total, order_id)
+                    SELECT X,
+                           CASE WHEN MOD(X, %d) = 0 THEN 'SKU-RECALL' ELSE 'SKU-' || MOD(X * 7919, %d) END,
+                           'Item', 1, 9.99, 9.99, (X + %d) / %d
+                    FROM SYSTEM_RANGE(%d, %d)""".formatted(RECALL_EVERY, SKUS, ITEMS_PER_ORDER - 1, ITEMS_PER_ORDER,
+                    from, Math.min(from + CHUNK - 1, ITEMS)));
+        }
+        jdbc.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.execute("CREATE INDEX IF NOT EXISTS " + SKU_INDEX);
+        jdbc.execute("DELETE FROM order_items");
+        jdbc.execute("DELETE FROM orders");
+    }
+
+    @Test
+    void skuLookup_withAndWithoutTheSkuIndex() {
+        log.info(String.format(Locale.ROOT, "=== %,d items, %,d orders", ITEMS, ORDERS));
+        report("indexed", 500);
+        jdbc.execute("DROP INDEX IF EXISTS " + SKU_INDEX.substring(0, SKU_INDEX.indexOf(' ')));
+        report("no sku index", 5);
+    }
+
+    /* ---------- helpers ---------- */
+
+    private void report(String label, int iterations) {
+        log.info("=== {}", label);
+        measure("ordinarySku", plan(jdbc, BY_SKU, "'SKU-42'"), iterations,
+                i -> jdbc.queryForList(BY_SKU, "SKU-" + (i * 31 % SKUS)));
+        measure("recallSku", plan(jdbc, BY_SKU, "'SKU-RECALL'"), iterations,
+                i -> jdbc.queryForList(BY_SKU, "SKU-RECALL"));
+        measure("recallSkuFiltered", plan(jdbc, BY_SKU_FILTERED, "'SKU-RECALL'"), iterations,
+                i -> jdbc.queryForList(BY_SKU_FILTERED, "SKU-RECALL"));
+        // a page in the middle of the recall: cursor at an order half-way through
+        long middle = ORDERS / 2 / RECALL_EVERY * RECALL_EVERY;
+        measure("recallSkuDeepPage", plan(jdbc, BY_SKU_AFTER.replaceFirst("\\?", "'SKU-RECALL'"), String.valueOf(middle)), iterations,
+                i -> jdbc.queryForList(BY_SKU_AFTER, "SKU-RECALL", middle, middle, middle));
+    }
+}